@@ -0,0 +1,259 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Reads files written by BinaryRecommendationWriter. Opening one reads the header and footer only;
+// records are then streamed in order with next(), or fetched by position or user ID through the
+// offset index with a couple of small positional reads each.
+public class BinaryRecommendationReader implements Closeable {
+    // One user's line of the text format, with titles kept as indexes into the header
+    public static final class Record {
+        private final String userName;
+        private final String userId;
+        private final int[] movieIndexes;
+        private final List<String> titles;
+
+        private Record(String userName, String userId, int[] movieIndexes, List<String> titles) {
+            this.userName = userName;
+            this.userId = userId;
+            this.movieIndexes = movieIndexes;
+            this.titles = titles;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        // Recommended movies as catalog indexes, ascending
+        public int[] getMovieIndexes() {
+            return movieIndexes.clone();
+        }
+
+        // Recommended titles in output order; empty for "No recommendations"
+        public List<String> getTitles() {
+            return new AbstractList<>() {
+                @Override
+                public String get(int index) {
+                    return titles.get(movieIndexes[index]);
+                }
+
+                @Override
+                public int size() {
+                    return movieIndexes.length;
+                }
+            };
+        }
+    }
+
+    private final FileChannel channel;
+    private final String error;
+    private final List<String> titles;
+    private final long dataOffset;
+    private final long indexOffset;
+    private final int userCount;
+    // Sequential cursor for next(), opened on first use
+    private DataInputStream stream = null;
+    private int streamed = 0;
+
+    private BinaryRecommendationReader(FileChannel channel, String error, List<String> titles, long dataOffset,
+                                       long indexOffset, int userCount) {
+        this.channel = channel;
+        this.error = error;
+        this.titles = titles;
+        this.dataOffset = dataOffset;
+        this.indexOffset = indexOffset;
+        this.userCount = userCount;
+    }
+
+    public static BinaryRecommendationReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file);
+        try {
+            long size = channel.size();
+            int headerBytes = BinaryRecommendationWriter.MAGIC.length + 1;
+            if (size < headerBytes + BinaryRecommendationWriter.FOOTER_BYTES) {
+                throw new IOException("ERROR: " + file + " is not a binary recommendations file");
+            }
+            ByteBuffer footer = readFully(channel, size - BinaryRecommendationWriter.FOOTER_BYTES,
+                    BinaryRecommendationWriter.FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            int userCount = footer.getInt();
+            byte[] magic = new byte[BinaryRecommendationWriter.MAGIC.length];
+            footer.get(magic);
+            ByteBuffer start = readFully(channel, 0, headerBytes);
+            byte[] startMagic = new byte[magic.length];
+            start.get(startMagic);
+            if (!Arrays.equals(magic, BinaryRecommendationWriter.MAGIC)
+                    || !Arrays.equals(startMagic, BinaryRecommendationWriter.MAGIC)
+                    || indexOffset + 16L * userCount + BinaryRecommendationWriter.FOOTER_BYTES != size) {
+                throw new IOException("ERROR: " + file + " is not a binary recommendations file");
+            }
+
+            CountingInputStream counting = new CountingInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(headerBytes))));
+            DataInputStream header = new DataInputStream(counting);
+            if (start.get() == BinaryRecommendationWriter.STATUS_ERROR) {
+                return new BinaryRecommendationReader(channel, readString(header), List.of(), indexOffset,
+                        indexOffset, 0);
+            }
+            String[] titles = new String[readVarint(header)];
+            for (int movie = 0; movie < titles.length; movie++) {
+                titles[movie] = readString(header);
+            }
+            return new BinaryRecommendationReader(channel, null, List.of(titles), headerBytes + counting.count,
+                    indexOffset, userCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // The validation error the file holds instead of recommendations, or null
+    public String getError() {
+        return error;
+    }
+
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    // The next record in file order, or null after the last one
+    public Record next() throws IOException {
+        if (streamed == userCount) {
+            return null;
+        }
+        if (stream == null) {
+            stream = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(dataOffset)), 1 << 16));
+        }
+        streamed++;
+        return readRecord(stream);
+    }
+
+    // The record at the given position in the output
+    public Record read(int recordNumber) throws IOException {
+        if (recordNumber < 0 || recordNumber >= userCount) {
+            throw new IndexOutOfBoundsException("Record " + recordNumber + " of " + userCount);
+        }
+        ByteBuffer offsets = readFully(channel, indexOffset + 8L * recordNumber,
+                recordNumber + 1 < userCount ? 16 : 8);
+        long start = offsets.getLong();
+        long end = offsets.hasRemaining() ? offsets.getLong() : indexOffset;
+        ByteBuffer record = readFully(channel, start, (int) (end - start));
+        return readRecord(new DataInputStream(new ByteArrayInputStream(record.array())));
+    }
+
+    // The first record of the user with the given ID, or null; a binary search over the ID index
+    public Record find(String userId) throws IOException {
+        long hashes = indexOffset + 8L * userCount;
+        long key = (long) userId.hashCode() << 32;
+        int low = 0;
+        int high = userCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (readFully(channel, hashes + 8L * middle, 8).getLong() < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // Entries with the same hash are in record order, so the first matching ID is the first record
+        for (int i = low; i < userCount; i++) {
+            long entry = readFully(channel, hashes + 8L * i, 8).getLong();
+            if ((entry >>> 32) != (key >>> 32)) {
+                break;
+            }
+            Record record = read((int) entry);
+            if (record.getUserId().equals(userId)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Record readRecord(DataInput in) throws IOException {
+        String name = readString(in);
+        String id = readString(in);
+        int[] movies = new int[readVarint(in)];
+        int movie = 0;
+        for (int i = 0; i < movies.length; i++) {
+            movie += readVarint(in);
+            movies[i] = movie;
+        }
+        return new Record(name, id, movies, titles);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("ERROR: binary recommendations file is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("ERROR: malformed varint in binary recommendations file");
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int n = super.read(bytes, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Writes recommendations in a compact binary format instead of the text one, which repeats full
+// titles on every line. Layout (varints are unsigned LEB128, fixed-width numbers big-endian):
+//
+//   "MRB1", status byte (0 = recommendations, 1 = validation error)
+//   status 1: varint length + UTF-8 error message
+//   status 0: varint title count, then per movie in catalog order varint length + UTF-8 title
+//   one record per user: name, ID (both varint length + UTF-8), varint match count, then the
+//     matched movie indexes in ascending order as varint deltas (the first one absolute)
+//   index: a long record offset per user, then per user a long of (ID hashCode << 32 | record
+//     number), sorted, for lookups by ID
+//   footer: long index offset, int user count, "MRB1"
+//
+// BinaryRecommendationReader reads it back record by record, by position or by user ID.
+public class BinaryRecommendationWriter implements Closeable {
+    static final byte[] MAGIC = "MRB1".getBytes(StandardCharsets.US_ASCII);
+    static final int FOOTER_BYTES = 8 + 4 + 4;
+    static final byte STATUS_RECOMMENDATIONS = 0;
+    static final byte STATUS_ERROR = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final OutputStream out;
+    private long position = 0;
+    private long[] recordOffsets = new long[1024];
+    private long[] idEntries = new long[1024];
+    private int records = 0;
+    // -1 until a header was written
+    private int status = -1;
+
+    public BinaryRecommendationWriter(Path file) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_BYTES);
+    }
+
+    // Header with the titles of every movie, which records refer to by index. Must come first.
+    public void writeHeader(CatalogSnapshot catalog) throws IOException {
+        writeHeaderStart(STATUS_RECOMMENDATIONS);
+        int movies = catalog.getMovies().size();
+        writeVarint(movies);
+        for (int movie = 0; movie < movies; movie++) {
+            writeString(catalog.titleUtf8(movie));
+        }
+    }
+
+    // The whole output when validation failed: a header with just the error and no users
+    public void writeError(String error) throws IOException {
+        writeHeaderStart(STATUS_ERROR);
+        writeString(error.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeUser(CatalogSnapshot catalog, int userIndex, long[] matches) throws IOException {
+        if (status != STATUS_RECOMMENDATIONS) {
+            throw new IllegalStateException("writeHeader must be called before writing users");
+        }
+        User user = catalog.getUsers().get(userIndex);
+        if (records == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, records * 2);
+            idEntries = Arrays.copyOf(idEntries, records * 2);
+        }
+        recordOffsets[records] = position;
+        StringArena arena = user.arena();
+        idEntries[records] = ((long) arena.hashCode(user.idHandle()) << 32) | records;
+        records++;
+
+        writeString(arena, user.nameHandle());
+        writeString(arena, user.idHandle());
+        int count = 0;
+        for (long word : matches) {
+            count += Long.bitCount(word);
+        }
+        writeVarint(count);
+        int previous = 0;
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                int movie = (word << 6) + Long.numberOfTrailingZeros(bits);
+                writeVarint(movie - previous);
+                previous = movie;
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (status != -1) {
+                long indexOffset = position;
+                DataOutputStream data = new DataOutputStream(out);
+                for (int i = 0; i < records; i++) {
+                    data.writeLong(recordOffsets[i]);
+                }
+                long[] sorted = Arrays.copyOf(idEntries, records);
+                Arrays.sort(sorted);
+                for (long entry : sorted) {
+                    data.writeLong(entry);
+                }
+                data.writeLong(indexOffset);
+                data.writeInt(records);
+                data.write(MAGIC);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeHeaderStart(byte headerStatus) throws IOException {
+        if (status != -1) {
+            throw new IllegalStateException("Header already written");
+        }
+        status = headerStatus;
+        out.write(MAGIC);
+        position += MAGIC.length;
+        writeByte(headerStatus);
+    }
+
+    private void writeByte(int b) throws IOException {
+        out.write(b);
+        position++;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeString(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private void writeString(StringArena arena, int handle) throws IOException {
+        int length = arena.length(handle);
+        writeVarint(length);
+        out.write(arena.chunk(handle), arena.start(handle), length);
+        position += length;
+    }
+}
@@ -0,0 +1,128 @@
+package org.example;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Memory-budgeted recommendation run that streams the users file instead of loading it.
+// Users are collected in batches; each full batch is computed and appended to a temporary file
+// through one RecommendationWriter for the whole run, whose buffers are sized from the budget.
+// The writer and the batches share half the budget. The user ID uniqueness check gets the other
+// half and spills to disk as well (see ExternalDuplicateFinder). A validation error anywhere in the
+// file still replaces the whole output, so the temporary file only replaces the output once the
+// entire file has been validated.
+public class BudgetedBatchRunner {
+    private final MovieRecommendationSystem system;
+    private final long memoryBudgetBytes;
+
+    public BudgetedBatchRunner(MovieRecommendationSystem system, long memoryBudgetBytes) {
+        if (memoryBudgetBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudgetBytes);
+        }
+        this.system = system;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    // Rough heap footprint of a parsed user: the object and its array of liked-ID handles. Its
+    // strings are in the batch's arena, which is counted separately.
+    static long estimateBytes(User user) {
+        return 32 + 16 + 4L * user.likedCount();
+    }
+
+    public void run(String usersFilePath, String outputFilePath) throws IOException {
+        CatalogSnapshot catalog = system.snapshot();
+        String error = catalog.getFirstError();
+        if (error != null) {
+            writeError(outputFilePath, error);
+            return;
+        }
+
+        Path output = Path.of(outputFilePath).toAbsolutePath();
+        Path workDir = Files.createTempDirectory(output.getParent(), "spill");
+        // Compressed like the output, so it can be moved there as is
+        Path spill = workDir.resolve(CompressedFiles.isCompressed(outputFilePath) ? "batches.txt.gz" : "batches.txt");
+        int bufferBytes = writerBufferBytes(memoryBudgetBytes);
+        long batchBudget = memoryBudgetBytes / 2 - (long) bufferBytes * RecommendationWriter.BUFFER_COUNT;
+        List<User> batch = new ArrayList<>();
+        long[] batchBytes = { 0 };
+        // Holds the strings of the current batch only; cleared after every batch. readUsers moves on
+        // to a new arena when one fills up, so the batch's earlier arenas count towards batchBytes.
+        StringArena[] arena = { new StringArena() };
+        long[] ordinal = { 0 };
+        try {
+            try (ExternalDuplicateFinder duplicates = new ExternalDuplicateFinder(workDir, memoryBudgetBytes / 2);
+                 RecommendationWriter writer = new RecommendationWriter(CompressedFiles.openChannel(spill), bufferBytes)) {
+                BufferedReader reader = CompressedFiles.openReader(usersFilePath);
+                try {
+                    error = MovieRecommendationSystem.readUsers(reader, null, arena[0], new MovieRecommendationSystem.UserSink() {
+                        @Override
+                        public void acceptId(String id) throws IOException {
+                            duplicates.add(id, ordinal[0]++);
+                        }
+
+                        @Override
+                        public void accept(User user) throws IOException {
+                            batch.add(user);
+                            batchBytes[0] += estimateBytes(user);
+                            if (user.arena() != arena[0]) {
+                                batchBytes[0] += arena[0].sizeInBytes();
+                                arena[0] = user.arena();
+                            }
+                            if (batchBytes[0] + arena[0].sizeInBytes() >= batchBudget) {
+                                writeBatch(writer, catalog, batch);
+                                batch.clear();
+                                arena[0].clear();
+                                batchBytes[0] = 0;
+                            }
+                        }
+                    });
+                } finally {
+                    reader.close();
+                }
+
+                // Any repeated ID comes before the first other error, because reading stops there
+                String duplicate = duplicates.findFirstDuplicate();
+                if (duplicate != null) {
+                    error = Validator.validateUserId(duplicate, Collections.singleton(duplicate));
+                }
+                if (error == null) {
+                    writeBatch(writer, catalog, batch);
+                }
+            }
+            if (error == null) {
+                Files.move(spill, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(spill);
+            Files.deleteIfExists(workDir);
+        }
+        if (error != null) {
+            writeError(outputFilePath, error);
+        }
+    }
+
+    // A quarter of the writer's and batches' half of the budget, up to the writer's usual size
+    static int writerBufferBytes(long memoryBudgetBytes) {
+        long bytes = memoryBudgetBytes / 8 / RecommendationWriter.BUFFER_COUNT;
+        return (int) Math.max(RecommendationWriter.MIN_BUFFER_BYTES,
+                Math.min(RecommendationWriter.DEFAULT_BUFFER_BYTES, bytes));
+    }
+
+    private static void writeBatch(RecommendationWriter writer, CatalogSnapshot catalog, List<User> batch)
+            throws IOException {
+        for (User user : batch) {
+            writer.writeUser(catalog, user);
+        }
+    }
+
+    private static void writeError(String outputFilePath, String error) throws IOException {
+        BufferedWriter writer = CompressedFiles.openWriter(Path.of(outputFilePath));
+        writer.write(error);
+        writer.newLine();
+        writer.close();
+    }
+}
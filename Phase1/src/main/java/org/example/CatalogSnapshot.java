@@ -0,0 +1,385 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// Immutable view of everything recommendations are computed from: the movies, the movie ID and
+// title indexes, the columnar genre masks, the users with their liked movie IDs resolved to catalog indexes, and
+// the first validation error. MovieRecommendationSystem publishes a new snapshot after every load,
+// so readers on any thread see either the old or the new catalog, never a mix. The lists are
+// copies, movies can't change, and users are frozen on the way in (see User.freeze), so nothing
+// changes underneath the resolved likes.
+public class CatalogSnapshot {
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(new MovieData(List.of()), List.of(), null);
+
+    // Everything derived from the movie list; built once per movie load and shared by the
+    // snapshots that only change the users
+    private static final class MovieData {
+        final List<Movie> movies;
+        final MovieIdIndex movieIndex;
+        final MovieTitleIndex titleIndex;
+        final GenreColumns genreColumns;
+        final byte[][] titlesUtf8;
+        // Index of the previous movie with the same title, or -1
+        final int[] previousSameTitle;
+        final boolean hasDuplicateTitles;
+        final int[] moviesPerGenre;
+        final long titleBytes;
+        // Built on first use, only when an execution plan asks for it
+        private volatile GenreIndex genreIndex;
+
+        MovieData(List<Movie> movies) {
+            this.movies = Collections.unmodifiableList(new ArrayList<>(movies));
+            this.genreColumns = GenreColumns.of(movies);
+
+            this.movieIndex = new MovieIdIndex(movies);
+            this.titleIndex = new MovieTitleIndex(movies);
+            // Keyed by the UTF-8 bytes, so no title is decoded
+            Map<ByteBuffer, Integer> lastWithTitle = new HashMap<>();
+            titlesUtf8 = new byte[movies.size()][];
+            previousSameTitle = new int[movies.size()];
+            boolean duplicates = false;
+            long bytes = 0;
+            for (int i = 0; i < movies.size(); i++) {
+                Movie movie = movies.get(i);
+                titlesUtf8[i] = movie.arena().bytes(movie.titleHandle());
+                bytes += titlesUtf8[i].length;
+                Integer previous = lastWithTitle.put(ByteBuffer.wrap(titlesUtf8[i]), i);
+                previousSameTitle[i] = previous == null ? -1 : previous;
+                duplicates |= previous != null;
+            }
+            this.hasDuplicateTitles = duplicates;
+            this.titleBytes = bytes;
+            this.moviesPerGenre = genreColumns.moviesPerGenre();
+        }
+
+        GenreIndex genreIndex() {
+            GenreIndex index = genreIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = genreIndex;
+                    if (index == null) {
+                        index = GenreIndex.of(genreColumns);
+                        genreIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+    }
+
+    private final MovieData movieData;
+    private final List<Movie> movies;
+    private final MovieIdIndex movieIndex;
+    private final MovieTitleIndex titleIndex;
+    private final GenreColumns genreColumns;
+    private final byte[][] titlesUtf8;
+    private final int[] previousSameTitle;
+    private final boolean hasDuplicateTitles;
+    private final List<User> users;
+    // Catalog indexes of each user's liked movies, parallel to users; unknown IDs are left out.
+    // Each movie is there once, even when the user named it both by ID and by title.
+    private final int[][] likedMovies;
+    private final long unknownMovieReferences;
+    private final long ambiguousMovieReferences;
+    private final long titleMovieReferences;
+    private final long resolvedLikes;
+    // Fallback for users without any genre match: the most liked movies, in catalog order.
+    // Empty unless the popularity fallback is enabled.
+    private final int[] popularMovies;
+    private final String firstError;
+
+    private CatalogSnapshot(MovieData movieData, List<User> users, String firstError) {
+        this.movieData = movieData;
+        this.movies = movieData.movies;
+        this.movieIndex = movieData.movieIndex;
+        this.titleIndex = movieData.titleIndex;
+        this.genreColumns = movieData.genreColumns;
+        this.titlesUtf8 = movieData.titlesUtf8;
+        this.previousSameTitle = movieData.previousSameTitle;
+        this.hasDuplicateTitles = movieData.hasDuplicateTitles;
+        this.users = users;
+        this.firstError = firstError;
+
+        // Liked IDs are resolved once per load instead of once per recommendation
+        likedMovies = new int[users.size()][];
+        // The last user that liked each movie, to drop a user's repeated likes of a movie
+        int[] likedBy = new int[movies.size()];
+        Arrays.fill(likedBy, -1);
+        long unknown = 0;
+        long ambiguous = 0;
+        long byTitle = 0;
+        long likes = 0;
+        for (int u = 0; u < users.size(); u++) {
+            User user = users.get(u);
+            user.freeze();
+            StringArena arena = user.arena();
+            int[] resolved = new int[user.likedCount()];
+            int count = 0;
+            for (int i = 0; i < user.likedCount(); i++) {
+                int likedMovieId = user.likedMovieIdHandle(i);
+                int movie = movieIndex.indexOf(arena, likedMovieId);
+                if (movie == MovieIdIndex.NOT_FOUND) {
+                    // Some users files list liked movies by title
+                    movie = titleIndex.indexOf(arena, likedMovieId);
+                    if (movie >= 0) {
+                        byTitle++;
+                    }
+                }
+                if (movie == MovieTitleIndex.AMBIGUOUS) {
+                    ambiguous++;
+                } else if (movie == MovieTitleIndex.NOT_FOUND) {
+                    unknown++;
+                } else if (likedBy[movie] != u) {
+                    likedBy[movie] = u;
+                    resolved[count++] = movie;
+                }
+            }
+            likedMovies[u] = count == resolved.length ? resolved : Arrays.copyOf(resolved, count);
+            likes += count;
+        }
+        this.unknownMovieReferences = unknown;
+        this.ambiguousMovieReferences = ambiguous;
+        this.titleMovieReferences = byTitle;
+        this.resolvedLikes = likes;
+        this.popularMovies = new int[0];
+    }
+
+    private CatalogSnapshot(CatalogSnapshot snapshot, int[] popularMovies) {
+        this.movieData = snapshot.movieData;
+        this.movies = snapshot.movies;
+        this.movieIndex = snapshot.movieIndex;
+        this.titleIndex = snapshot.titleIndex;
+        this.genreColumns = snapshot.genreColumns;
+        this.titlesUtf8 = snapshot.titlesUtf8;
+        this.previousSameTitle = snapshot.previousSameTitle;
+        this.hasDuplicateTitles = snapshot.hasDuplicateTitles;
+        this.users = snapshot.users;
+        this.likedMovies = snapshot.likedMovies;
+        this.unknownMovieReferences = snapshot.unknownMovieReferences;
+        this.ambiguousMovieReferences = snapshot.ambiguousMovieReferences;
+        this.titleMovieReferences = snapshot.titleMovieReferences;
+        this.resolvedLikes = snapshot.resolvedLikes;
+        this.popularMovies = popularMovies;
+        this.firstError = snapshot.firstError;
+    }
+
+    CatalogSnapshot withMovies(List<Movie> newMovies, String error) {
+        return new CatalogSnapshot(new MovieData(newMovies), users, error);
+    }
+
+    CatalogSnapshot withUsers(List<User> newUsers, String error) {
+        return new CatalogSnapshot(movieData, Collections.unmodifiableList(new ArrayList<>(newUsers)), error);
+    }
+
+    // Same catalog with the topN most liked movies as the fallback for users without matches.
+    // Ties go to the earlier movie, movies nobody likes are never picked and every title is picked
+    // at most once. popularity must be up to date with this snapshot. Costs a pass over the movies,
+    // not over the users.
+    CatalogSnapshot withPopularMovies(PopularityIndex popularity, int topN) {
+        long[] likes = new long[movies.size()];
+        for (int movie = 0; movie < movies.size(); movie++) {
+            likes[movie] = popularity.count(movie);
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (int movie = 0; movie < movies.size(); movie++) {
+            // Each title counts once
+            if (likes[movie] > 0 && previousSameTitle[movie] == -1) {
+                candidates.add(movie);
+            }
+        }
+        candidates.sort((a, b) -> likes[a] != likes[b] ? Long.compare(likes[b], likes[a]) : Integer.compare(a, b));
+
+        int[] popular = new int[Math.min(topN, candidates.size())];
+        for (int i = 0; i < popular.length; i++) {
+            popular[i] = candidates.get(i);
+        }
+        Arrays.sort(popular);
+        return new CatalogSnapshot(this, popular);
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public Movie getMovie(String id) {
+        int index = movieIndex.indexOf(id);
+        return index == MovieIdIndex.NOT_FOUND ? null : movies.get(index);
+    }
+
+    public GenreColumns getGenreColumns() {
+        return genreColumns;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public String getFirstError() {
+        return firstError;
+    }
+
+    // Liked movie IDs of the loaded users that match no movie ID or title; those likes are ignored
+    public long getUnknownMovieReferences() {
+        return unknownMovieReferences;
+    }
+
+    // Liked titles that match several movies; those likes are ignored too
+    public long getAmbiguousMovieReferences() {
+        return ambiguousMovieReferences;
+    }
+
+    // Likes given as a movie title rather than an ID, and resolved by title
+    public long getTitleMovieReferences() {
+        return titleMovieReferences;
+    }
+
+    // Catalog indexes of the liked movies of the loaded user at userIndex, each movie once
+    int[] likedMovies(int userIndex) {
+        return likedMovies[userIndex];
+    }
+
+    // Catalog index of a liked token, tried as an ID and then as a title; negative if it matches
+    // no movie or several
+    private int indexOfLike(StringArena arena, int token) {
+        int movie = movieIndex.indexOf(arena, token);
+        return movie != MovieIdIndex.NOT_FOUND ? movie : titleIndex.indexOf(arena, token);
+    }
+
+    // Shape of the catalog for the ExecutionPlanner; cheap, everything was counted while loading
+    public CatalogStatistics getStatistics() {
+        return new CatalogStatistics(users.size(), resolvedLikes, movies.size(), genreColumns.words(),
+                movieData.moviesPerGenre, movieData.titleBytes);
+    }
+
+    // Genre index of the movies, built on the first call and shared by later snapshots of the
+    // same movie load
+    GenreIndex genreIndex() {
+        return movieData.genreIndex();
+    }
+
+    // Movies sharing a genre with any movie the user liked, excluding the liked movies themselves,
+    // in catalog order. With the popularity fallback, users without any such movie get the most
+    // liked movies they haven't liked themselves.
+    public Set<String> recommend(User user) {
+        return titlesOf(recommendedMovies(user));
+    }
+
+    // Same as recommend for the loaded user at userIndex, using its resolved likes
+    public Set<String> recommend(int userIndex) {
+        return titlesOf(recommendedMovies(userIndex));
+    }
+
+    private Set<String> titlesOf(long[] matches) {
+        Set<String> recommendedMovies = new LinkedHashSet<>();
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                recommendedMovies.add(movies.get((word << 6) + Long.numberOfTrailingZeros(bits)).getTitle());
+                bits &= bits - 1;
+            }
+        }
+        return recommendedMovies;
+    }
+
+    // Same as recommend, as a bitset of movie indexes. A title is only reported once, for the
+    // first recommended movie that has it.
+    long[] recommendedMovies(User user) {
+        return recommendedMovies(user, newScratch());
+    }
+
+    long[] recommendedMovies(int userIndex) {
+        return recommendedMovies(userIndex, null);
+    }
+
+    // Same, finding genre matches with the given index instead of a scan when it isn't null
+    long[] recommendedMovies(int userIndex, GenreIndex index) {
+        return recommendedMovies(userIndex, index, newScratch());
+    }
+
+    // Working memory for the allocation-free forms below, one per thread
+    RecommendationScratch newScratch() {
+        return new RecommendationScratch(genreColumns);
+    }
+
+    // Allocation-free forms for the output loops: the result is scratch.matches, which the next
+    // call with the same scratch overwrites
+    long[] recommendedMovies(User user, RecommendationScratch scratch) {
+        StringArena arena = user.arena();
+        int[] liked = scratch.liked(user.likedCount());
+        int count = 0;
+        for (int i = 0; i < user.likedCount(); i++) {
+            int movie = indexOfLike(arena, user.likedMovieIdHandle(i));
+            if (movie >= 0) {
+                liked[count++] = movie;
+            }
+        }
+        return recommendedMovies(liked, count, null, scratch);
+    }
+
+    long[] recommendedMovies(int userIndex, GenreIndex index, RecommendationScratch scratch) {
+        int[] liked = likedMovies[userIndex];
+        return recommendedMovies(liked, liked.length, index, scratch);
+    }
+
+    private long[] recommendedMovies(int[] liked, int likedCount, GenreIndex index, RecommendationScratch scratch) {
+        scratch.clear();
+        long[] likedGenres = scratch.likedGenres;
+        long[] likedMovies = scratch.likedMovies;
+        long[] matches = scratch.matches;
+
+        // Find genres of liked movies
+        long anyGenre = 0;
+        for (int i = 0; i < likedCount; i++) {
+            int movie = liked[i];
+            genreColumns.addGenresOf(movie, likedGenres);
+            likedMovies[movie >>> 6] |= 1L << movie;
+        }
+        for (long word : likedGenres) {
+            anyGenre |= word;
+        }
+        boolean found = false;
+        if (anyGenre != 0) {
+            // Find movies with the same genres
+            if (index != null) {
+                index.union(likedGenres, matches);
+            } else {
+                GenreScan.scan(genreColumns, likedGenres, matches);
+            }
+            for (int word = 0; word < matches.length; word++) {
+                matches[word] &= ~likedMovies[word];
+                found |= matches[word] != 0;
+            }
+        }
+        if (!found) {
+            for (int movie : popularMovies) {
+                matches[movie >>> 6] |= (1L << movie) & ~likedMovies[movie >>> 6];
+            }
+        } else if (hasDuplicateTitles) {
+            for (int movie = 0; movie < movies.size(); movie++) {
+                if ((matches[movie >>> 6] & (1L << movie)) != 0 && titleAlreadyMatched(matches, movie)) {
+                    matches[movie >>> 6] &= ~(1L << movie);
+                }
+            }
+        }
+        // Only the liked bits were set, so clearing them is cheaper than clearing the bitset
+        for (int i = 0; i < likedCount; i++) {
+            likedMovies[liked[i] >>> 6] = 0;
+        }
+        return matches;
+    }
+
+    private boolean titleAlreadyMatched(long[] matches, int movie) {
+        for (int earlier = previousSameTitle[movie]; earlier >= 0; earlier = previousSameTitle[earlier]) {
+            if ((matches[earlier >>> 6] & (1L << earlier)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // UTF-8 form of a movie title, encoded once per snapshot for the output writers
+    byte[] titleUtf8(int movie) {
+        return titlesUtf8[movie];
+    }
+}
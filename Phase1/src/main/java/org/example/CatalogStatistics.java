@@ -0,0 +1,73 @@
+package org.example;
+
+// Cheap statistics about the shape of a catalog, gathered while it is loaded, that the
+// ExecutionPlanner bases its cost estimates on
+public final class CatalogStatistics {
+    private final int users;
+    private final long likes;
+    private final int movies;
+    private final int genres;
+    private final int genreWords;
+    private final long genreAssignments;
+    private final double meanGenreFrequency;
+    private final double averageTitleBytes;
+
+    CatalogStatistics(int users, long likes, int movies, int genreWords, int[] moviesPerGenre,
+                      long titleBytes) {
+        this.users = users;
+        this.likes = likes;
+        this.movies = movies;
+        this.genres = moviesPerGenre.length;
+        this.genreWords = genreWords;
+
+        long assignments = 0;
+        long squares = 0;
+        for (int count : moviesPerGenre) {
+            assignments += count;
+            squares += (long) count * count;
+        }
+        this.genreAssignments = assignments;
+        // How common the genre of a random (movie, genre) pair is; high when a few genres dominate
+        this.meanGenreFrequency = assignments == 0 ? 0 : (double) squares / assignments / movies;
+        this.averageTitleBytes = movies == 0 ? 0 : (double) titleBytes / movies;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public double getLikesPerUser() {
+        return users == 0 ? 0 : (double) likes / users;
+    }
+
+    public int getMovies() {
+        return movies;
+    }
+
+    public int getGenres() {
+        return genres;
+    }
+
+    public int getGenreWords() {
+        return genreWords;
+    }
+
+    public double getGenresPerMovie() {
+        return movies == 0 ? 0 : (double) genreAssignments / movies;
+    }
+
+    public double getMeanGenreFrequency() {
+        return meanGenreFrequency;
+    }
+
+    public double getAverageTitleBytes() {
+        return averageTitleBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d users (%.1f likes each), %d movies, %d genres (%.1f per movie, "
+                        + "mean frequency %.3f)",
+                users, getLikesPerUser(), movies, genres, getGenresPerMovie(), meanGenreFrequency);
+    }
+}
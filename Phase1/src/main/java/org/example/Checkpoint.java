@@ -0,0 +1,60 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+// Progress record of a recommendation batch run: the index and ID of the last user whose output is
+// fully flushed to disk, and the output file offset right after that user's lines.
+// Stored as a single line "lastUserIndex,offset,lastUserId".
+public class Checkpoint {
+    private final int lastUserIndex;
+    private final long offset;
+    private final String lastUserId;
+
+    public Checkpoint(int lastUserIndex, long offset, String lastUserId) {
+        this.lastUserIndex = lastUserIndex;
+        this.offset = offset;
+        this.lastUserId = lastUserId;
+    }
+
+    public int getLastUserIndex() {
+        return lastUserIndex;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getLastUserId() {
+        return lastUserId;
+    }
+
+    // Writes to a temporary file first and renames it, so a crash never leaves a torn checkpoint
+    public void write(Path checkpointFile) throws IOException {
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        String line = lastUserIndex + "," + offset + "," + lastUserId;
+        Files.write(temp, List.of(line), StandardCharsets.UTF_8);
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null when there is no checkpoint to resume from
+    public static Checkpoint read(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(checkpointFile, StandardCharsets.UTF_8);
+        String[] parts = lines.isEmpty() ? new String[0] : lines.get(0).split(",");
+        if (parts.length != 3) {
+            throw new IOException("Invalid checkpoint file " + checkpointFile);
+        }
+        try {
+            return new Checkpoint(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid checkpoint file " + checkpointFile, e);
+        }
+    }
+}
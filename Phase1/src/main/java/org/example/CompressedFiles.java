@@ -0,0 +1,60 @@
+package org.example;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+// Opens input and output files, transparently gzip-compressed when the name ends in ".gz".
+// Compressed input is decompressed on a read-ahead thread; compressed output is deflated in
+// parallel blocks. Text is UTF-8 both ways, which is what every writer in the system produces.
+public final class CompressedFiles {
+    private static final int GZIP_BUFFER_BYTES = 1 << 16;
+
+    private CompressedFiles() {
+    }
+
+    public static boolean isCompressed(String filePath) {
+        return filePath.endsWith(".gz");
+    }
+
+    // Malformed input is replaced rather than rejected, as FileReader did
+    public static BufferedReader openReader(String filePath) throws IOException {
+        if (!isCompressed(filePath)) {
+            return new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8));
+        }
+        InputStream in = new FileInputStream(filePath);
+        try {
+            return new BufferedReader(new InputStreamReader(
+                    new ReadAheadInputStream(new GZIPInputStream(in, GZIP_BUFFER_BYTES)), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Not a gzip file
+            in.close();
+            throw e;
+        }
+    }
+
+    // Creates or truncates the file
+    public static OutputStream openOutput(Path file) throws IOException {
+        OutputStream out = new FileOutputStream(file.toFile());
+        return isCompressed(file.toString()) ? new ParallelGzipOutputStream(out) : out;
+    }
+
+    // Creates or truncates the file
+    public static BufferedWriter openWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(openOutput(file), StandardCharsets.UTF_8));
+    }
+
+    // Creates or truncates the file; a FileChannel unless the output is compressed
+    public static WritableByteChannel openChannel(Path file) throws IOException {
+        if (isCompressed(file.toString())) {
+            return Channels.newChannel(openOutput(file));
+        }
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+// How generateRecommendations computes the matches of every user, as chosen by the
+// ExecutionPlanner
+public final class ExecutionPlan {
+    public enum Strategy {
+        // Scan the genre columns of every movie for each user (GenreScan); no set-up cost
+        DIRECT_SCAN,
+        // Build a GenreIndex once, then union the posting bitsets of each user's genres
+        INDEX_UNION,
+        // The cheaper of the two kernels on a pool of worker threads; the output is still written
+        // in user order
+        PARALLEL
+    }
+
+    private final Strategy strategy;
+    private final int parallelism;
+    private final boolean usesIndex;
+    private final double estimatedCost;
+
+    ExecutionPlan(Strategy strategy, int parallelism, boolean usesIndex, double estimatedCost) {
+        checkParallelism(strategy, parallelism);
+        this.strategy = strategy;
+        this.parallelism = parallelism;
+        this.usesIndex = strategy == Strategy.INDEX_UNION || (strategy == Strategy.PARALLEL && usesIndex);
+        this.estimatedCost = estimatedCost;
+    }
+
+    // Rejects a degree the strategy can't use: PARALLEL takes any positive one, the others only 1
+    static void checkParallelism(Strategy strategy, int parallelism) {
+        if (parallelism < 1 || (strategy != Strategy.PARALLEL && parallelism != 1)) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism + " for " + strategy);
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // Whether matches come from a GenreIndex rather than GenreScan
+    public boolean usesIndex() {
+        return usesIndex;
+    }
+
+    // In the planner's units, roughly nanoseconds
+    public double getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    @Override
+    public String toString() {
+        return strategy == Strategy.PARALLEL
+                ? strategy + "(" + parallelism + (usesIndex ? ", index" : ", scan") + ")"
+                : strategy.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.logging.Logger;
+
+// Picks the cheapest ExecutionPlan for a catalog from its CatalogStatistics. Costs are rough
+// estimates in word operations (about a nanosecond each):
+//  - every plan pays for resolving masks and writing the output, which is sequential;
+//  - DIRECT_SCAN tests every movie's genre words per user;
+//  - INDEX_UNION ORs one posting bitset per liked genre per user, after building the index;
+//  - PARALLEL divides the cheaper of those per-user costs by its degree, plus a start-up cost per
+//    thread.
+// Small inputs therefore stay on the scan, which needs no set-up, and large inputs move to the
+// index when users like few genres and, with more than one processor, to parallel execution.
+public class ExecutionPlanner {
+    private static final Logger LOGGER = Logger.getLogger(ExecutionPlanner.class.getName());
+    private static final double INDEX_SETUP_COST = 20_000;
+    private static final double THREAD_SETUP_COST = 100_000;
+    private static final double USER_OVERHEAD_COST = 20;
+    // Output bytes copied per unit of cost
+    private static final double BYTES_PER_COST = 8;
+
+    private final int processors;
+
+    public ExecutionPlanner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ExecutionPlanner(int processors) {
+        this.processors = Math.max(1, processors);
+    }
+
+    public ExecutionPlan plan(CatalogStatistics statistics) {
+        ExecutionPlan best = planFor(statistics, ExecutionPlan.Strategy.DIRECT_SCAN, 1);
+        ExecutionPlan index = planFor(statistics, ExecutionPlan.Strategy.INDEX_UNION, 1);
+        if (index.getEstimatedCost() < best.getEstimatedCost()) {
+            best = index;
+        }
+        for (int degree = 2; degree <= processors; degree++) {
+            ExecutionPlan parallel = planFor(statistics, ExecutionPlan.Strategy.PARALLEL, degree);
+            if (parallel.getEstimatedCost() < best.getEstimatedCost()) {
+                best = parallel;
+            }
+        }
+        ExecutionPlan chosen = best;
+        LOGGER.info(() -> String.format("Chose plan %s, estimated cost %.0f, for %s", chosen, chosen.getEstimatedCost(),
+                statistics));
+        return best;
+    }
+
+    // A given plan instead of the cheapest one, e.g. for testing; still logged with its cost
+    public ExecutionPlan force(CatalogStatistics statistics, ExecutionPlan.Strategy strategy, int parallelism) {
+        ExecutionPlan plan = planFor(statistics, strategy, parallelism);
+        LOGGER.info(() -> String.format("Forced plan %s, estimated cost %.0f, for %s", plan, plan.getEstimatedCost(),
+                statistics));
+        return plan;
+    }
+
+    ExecutionPlan planFor(CatalogStatistics statistics, ExecutionPlan.Strategy strategy, int parallelism) {
+        if (strategy != ExecutionPlan.Strategy.PARALLEL) {
+            return new ExecutionPlan(strategy, parallelism, false,
+                    estimateCost(statistics, strategy, parallelism, false));
+        }
+        double withIndex = estimateCost(statistics, strategy, parallelism, true);
+        double withScan = estimateCost(statistics, strategy, parallelism, false);
+        return new ExecutionPlan(strategy, parallelism, withIndex <= withScan, Math.min(withIndex, withScan));
+    }
+
+    static double estimateCost(CatalogStatistics statistics, ExecutionPlan.Strategy strategy, int parallelism,
+                               boolean parallelUsesIndex) {
+        double users = statistics.getUsers();
+        double movies = statistics.getMovies();
+        double movieWords = Math.ceil(movies / 64);
+        double likedGenres = Math.min(statistics.getGenres(),
+                statistics.getLikesPerUser() * statistics.getGenresPerMovie());
+        // Chance that a movie shares at least one of a user's genres
+        double matchFraction = 1 - Math.pow(1 - statistics.getMeanGenreFrequency(), likedGenres);
+
+        double sequentialPerUser = USER_OVERHEAD_COST + 3 * movieWords
+                + statistics.getLikesPerUser() * statistics.getGenreWords()
+                + movies * matchFraction * (statistics.getAverageTitleBytes() + 1) / BYTES_PER_COST;
+        double sequential = users * sequentialPerUser;
+
+        int lanes = GenreScan.VECTOR_AVAILABLE ? 4 : 1;
+        double scanPerUser = movies * Math.min(statistics.getGenreWords(), Math.max(1, likedGenres)) / lanes;
+        double unionPerUser = likedGenres * movieWords;
+        switch (strategy) {
+            case DIRECT_SCAN:
+                return sequential + users * scanPerUser;
+            case INDEX_UNION:
+                return sequential + indexBuildCost(statistics) + users * unionPerUser;
+            case PARALLEL:
+                double setup = parallelism * THREAD_SETUP_COST + (parallelUsesIndex ? indexBuildCost(statistics) : 0);
+                return sequential + setup + users * (parallelUsesIndex ? unionPerUser : scanPerUser) / parallelism;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
+    private static double indexBuildCost(CatalogStatistics statistics) {
+        double movieWords = Math.ceil(statistics.getMovies() / 64.0);
+        return INDEX_SETUP_COST + statistics.getMovies() * statistics.getGenreWords()
+                + statistics.getGenres() * movieWords
+                + 2 * statistics.getGenresPerMovie() * statistics.getMovies();
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Finds the earliest repeated user ID of a stream without keeping every ID in memory.
+// IDs are buffered up to a byte budget, then sorted and spilled as runs to temporary files;
+// the runs are merged at the end, a bounded number at a time.
+class ExternalDuplicateFinder implements Closeable {
+    private static final int MERGE_FAN_IN = 32;
+
+    private static class Occurrence {
+        final String id;
+        final long ordinal;
+
+        Occurrence(String id, long ordinal) {
+            this.id = id;
+            this.ordinal = ordinal;
+        }
+    }
+
+    // Sort by ID; equal IDs keep the order they were added in, which is ordinal order
+    private static final Comparator<Occurrence> ORDER =
+            Comparator.comparing((Occurrence o) -> o.id).thenComparingLong(o -> o.ordinal);
+
+    private final Path workDir;
+    private final long budgetBytes;
+    private final List<Occurrence> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long bufferedBytes;
+
+    ExternalDuplicateFinder(Path workDir, long budgetBytes) {
+        this.workDir = workDir;
+        this.budgetBytes = budgetBytes;
+    }
+
+    static long estimateBytes(String id) {
+        // Occurrence object, String and its backing array, list slot
+        return 16 + 8 + 8 + 40 + 2L * id.length() + 8;
+    }
+
+    void add(String id, long ordinal) throws IOException {
+        buffer.add(new Occurrence(id, ordinal));
+        bufferedBytes += estimateBytes(id);
+        if (bufferedBytes >= budgetBytes) {
+            spill();
+        }
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(ORDER);
+        Path run = Files.createTempFile(workDir, "ids", ".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run.toFile())))) {
+            for (Occurrence occurrence : buffer) {
+                out.writeUTF(occurrence.id);
+                out.writeLong(occurrence.ordinal);
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    // Returns the ID whose second occurrence comes first in the stream, or null if all IDs are unique
+    String findFirstDuplicate() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(ORDER);
+            return firstDuplicate(buffer.iterator());
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > MERGE_FAN_IN) {
+            List<Path> group = new ArrayList<>(runs.subList(0, MERGE_FAN_IN));
+            runs.subList(0, MERGE_FAN_IN).clear();
+            Path merged = Files.createTempFile(workDir, "ids", ".run");
+            try (RunMerger merger = new RunMerger(group);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(merged.toFile())))) {
+                while (merger.hasNext()) {
+                    Occurrence occurrence = merger.next();
+                    out.writeUTF(occurrence.id);
+                    out.writeLong(occurrence.ordinal);
+                }
+            }
+            for (Path run : group) {
+                Files.deleteIfExists(run);
+            }
+            runs.add(merged);
+        }
+        try (RunMerger merger = new RunMerger(runs)) {
+            return firstDuplicate(merger);
+        }
+    }
+
+    private static String firstDuplicate(Iterator<Occurrence> sorted) {
+        String duplicate = null;
+        long duplicateOrdinal = Long.MAX_VALUE;
+        String currentId = null;
+        int seen = 0;
+        while (sorted.hasNext()) {
+            Occurrence occurrence = sorted.next();
+            if (!occurrence.id.equals(currentId)) {
+                currentId = occurrence.id;
+                seen = 0;
+            }
+            seen++;
+            // Only the second occurrence matters: that is where a sequential check would fail
+            if (seen == 2 && occurrence.ordinal < duplicateOrdinal) {
+                duplicate = occurrence.id;
+                duplicateOrdinal = occurrence.ordinal;
+            }
+        }
+        return duplicate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    // K-way merge of sorted run files
+    private static class RunMerger implements Iterator<Occurrence>, Closeable {
+        private final List<DataInputStream> inputs = new ArrayList<>();
+        private final PriorityQueue<Map.Entry<Occurrence, Integer>> heads =
+                new PriorityQueue<>(Map.Entry.comparingByKey(ORDER));
+
+        RunMerger(List<Path> runs) throws IOException {
+            for (Path run : runs) {
+                inputs.add(new DataInputStream(new BufferedInputStream(new FileInputStream(run.toFile()))));
+                advance(inputs.size() - 1);
+            }
+        }
+
+        private void advance(int input) {
+            try {
+                DataInputStream in = inputs.get(input);
+                heads.add(new AbstractMap.SimpleEntry<>(new Occurrence(in.readUTF(), in.readLong()), input));
+            } catch (EOFException e) {
+                // Run exhausted
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Occurrence next() {
+            Map.Entry<Occurrence, Integer> head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.getValue());
+            return head.getKey();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataInputStream in : inputs) {
+                in.close();
+            }
+        }
+    }
+}
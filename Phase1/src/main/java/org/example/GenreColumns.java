@@ -0,0 +1,86 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Columnar genre layout of a catalog. Every distinct genre gets a bit; a movie's genres form a mask
+// of ceil(genres / 64) words, stored column by column so that word w of all movies is one
+// contiguous long[] that the scan kernels can stream through.
+public final class GenreColumns {
+    private final Map<String, Integer> genreBits;
+    private final int movieCount;
+    // masks[word][movie]
+    private final long[][] masks;
+
+    private GenreColumns(Map<String, Integer> genreBits, int movieCount, long[][] masks) {
+        this.genreBits = genreBits;
+        this.movieCount = movieCount;
+        this.masks = masks;
+    }
+
+    public static GenreColumns of(List<Movie> movies) {
+        Map<String, Integer> genreBits = new HashMap<>();
+        for (Movie movie : movies) {
+            for (String genre : movie.getGenres()) {
+                genreBits.putIfAbsent(genre, genreBits.size());
+            }
+        }
+
+        int words = Math.max(1, (genreBits.size() + 63) >>> 6);
+        long[][] masks = new long[words][movies.size()];
+        for (int movie = 0; movie < movies.size(); movie++) {
+            for (String genre : movies.get(movie).getGenres()) {
+                int bit = genreBits.get(genre);
+                masks[bit >>> 6][movie] |= 1L << bit;
+            }
+        }
+        return new GenreColumns(genreBits, movies.size(), masks);
+    }
+
+    public int movieCount() {
+        return movieCount;
+    }
+
+    public int genreCount() {
+        return genreBits.size();
+    }
+
+    public int words() {
+        return masks.length;
+    }
+
+    long[] column(int word) {
+        return masks[word];
+    }
+
+    // Number of movies per genre bit
+    public int[] moviesPerGenre() {
+        int[] counts = new int[genreBits.size()];
+        for (int word = 0; word < masks.length; word++) {
+            for (int movie = 0; movie < movieCount; movie++) {
+                long genres = masks[word][movie];
+                while (genres != 0) {
+                    counts[(word << 6) + Long.numberOfTrailingZeros(genres)]++;
+                    genres &= genres - 1;
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Adds the genres of a movie to a mask of words() longs
+    public void addGenresOf(int movie, long[] mask) {
+        for (int word = 0; word < masks.length; word++) {
+            mask[word] |= masks[word][movie];
+        }
+    }
+
+    public long[] newMask() {
+        return new long[masks.length];
+    }
+
+    public long[] newMovieBitset() {
+        return new long[(movieCount + 63) >>> 6];
+    }
+}
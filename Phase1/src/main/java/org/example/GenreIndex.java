@@ -0,0 +1,51 @@
+package org.example;
+
+// Inverted form of GenreColumns: for every genre, the bitset of movies that have it. Finding the
+// movies that share a genre with a mask is then a union of a few posting bitsets instead of a scan
+// over every movie, which pays off once there are many users to amortize building it.
+public final class GenreIndex {
+    private final int movieWords;
+    // postings[genre bit] is a bitset of movie indexes
+    private final long[][] postings;
+
+    private GenreIndex(int movieWords, long[][] postings) {
+        this.movieWords = movieWords;
+        this.postings = postings;
+    }
+
+    public static GenreIndex of(GenreColumns columns) {
+        int movieWords = (columns.movieCount() + 63) >>> 6;
+        long[][] postings = new long[columns.words() << 6][];
+        for (int word = 0; word < columns.words(); word++) {
+            long[] column = columns.column(word);
+            for (int movie = 0; movie < columns.movieCount(); movie++) {
+                long genres = column[movie];
+                while (genres != 0) {
+                    int bit = (word << 6) + Long.numberOfTrailingZeros(genres);
+                    if (postings[bit] == null) {
+                        postings[bit] = new long[movieWords];
+                    }
+                    postings[bit][movie >>> 6] |= 1L << movie;
+                    genres &= genres - 1;
+                }
+            }
+        }
+        return new GenreIndex(movieWords, postings);
+    }
+
+    // Same result as GenreScan.scan: sets the bit of every movie sharing a genre with genreMask
+    public void union(long[] genreMask, long[] matches) {
+        for (int word = 0; word < genreMask.length; word++) {
+            long genres = genreMask[word];
+            while (genres != 0) {
+                long[] posting = postings[(word << 6) + Long.numberOfTrailingZeros(genres)];
+                if (posting != null) {
+                    for (int i = 0; i < movieWords; i++) {
+                        matches[i] |= posting[i];
+                    }
+                }
+                genres &= genres - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+// Finds every movie that shares at least one genre with a mask, writing the hits as bits of
+// movie indexes. The vector kernel is used when the jdk.incubator.vector module is available
+// (run with --add-modules jdk.incubator.vector); otherwise the scalar loop, which gives
+// identical results.
+public final class GenreScan {
+    static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private GenreScan() {
+    }
+
+    public static void scan(GenreColumns columns, long[] genreMask, long[] matches) {
+        if (VECTOR_AVAILABLE) {
+            VectorGenreScan.scan(columns, genreMask, matches);
+        } else {
+            scanScalar(columns, genreMask, matches, 0);
+        }
+    }
+
+    // Scans the movies from index 'from' on; matches must be cleared for that range
+    static void scanScalar(GenreColumns columns, long[] genreMask, long[] matches, int from) {
+        int movieCount = columns.movieCount();
+        for (int word = 0; word < columns.words(); word++) {
+            long wordMask = genreMask[word];
+            if (wordMask == 0) {
+                continue;
+            }
+            long[] column = columns.column(word);
+            for (int movie = from; movie < movieCount; movie++) {
+                if ((column[movie] & wordMask) != 0) {
+                    matches[movie >>> 6] |= 1L << movie;
+                }
+            }
+        }
+    }
+}
@@ -1,16 +1,203 @@
 package org.example;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class Main {
+    private static final String MOVIES_FILE = "C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\movies.txt";
+    private static final String USERS_FILE = "C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\users.txt";
+    private static final String RECOMMENDATIONS_FILE = "C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\recommendations.txt";
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 5000;
+    static final String USAGE = "Usage: Main [--shards N | --memory-budget BYTES] [--popular N] [--plan STRATEGY]\n"
+            + "            [--checkpoint FILE [--resume] | --delta PREVIOUS HASHFILE | --binary]\n"
+            + "            [moviesFile usersFile recommendationsFile]";
+
+    // Usage: see USAGE. Without files, the default paths above are used.
+    // With --delta the output file only receives users whose recommendations changed since PREVIOUS
+    // (a recommendations or hash file); this run's hashes are saved to HASHFILE.
+    // With --popular, users without genre matches get the N most liked movies instead of
+    // "No recommendations".
+    // --plan forces an ExecutionPlan.Strategy instead of the cheapest estimated one; PARALLEL
+    // uses every available processor.
+    // --binary writes the compact format of BinaryRecommendationWriter instead of text.
+    // --shards and --memory-budget never load all users, so they take none of the other options.
+    static final class Options {
+        int shards = 1;
+        String checkpointFile = null;
+        boolean resume = false;
+        String previousFile = null;
+        String hashFile = null;
+        long memoryBudget = 0;
+        int popular = 0;
+        ExecutionPlan.Strategy plan = null;
+        boolean binary = false;
+        String moviesFile = MOVIES_FILE;
+        String usersFile = USERS_FILE;
+        String recommendationsFile = RECOMMENDATIONS_FILE;
+
+        // Throws IllegalArgumentException for anything that isn't a valid command line
+        static Options parse(String[] args) {
+            Options options = new Options();
+            List<String> files = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--shards":
+                        options.shards = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--checkpoint":
+                        options.checkpointFile = value(args, ++i, arg);
+                        break;
+                    case "--delta":
+                        options.previousFile = value(args, ++i, arg);
+                        options.hashFile = value(args, ++i, arg);
+                        break;
+                    case "--memory-budget":
+                        options.memoryBudget = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--popular":
+                        options.popular = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--plan":
+                        options.plan = ExecutionPlan.Strategy.valueOf(value(args, ++i, arg));
+                        break;
+                    case "--binary":
+                        options.binary = true;
+                        break;
+                    case "--resume":
+                        options.resume = true;
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        }
+                        files.add(arg);
+                }
+            }
+
+            if (files.size() == 3) {
+                options.moviesFile = files.get(0);
+                options.usersFile = files.get(1);
+                options.recommendationsFile = files.get(2);
+            } else if (!files.isEmpty()) {
+                throw new IllegalArgumentException("Expected 3 files, got " + files.size() + ": " + files);
+            }
+            if (options.shards < 1) {
+                throw new IllegalArgumentException("--shards must be at least 1: " + options.shards);
+            }
+            if (options.memoryBudget < 0) {
+                throw new IllegalArgumentException("--memory-budget must not be negative: " + options.memoryBudget);
+            }
+            if (options.popular < 0) {
+                throw new IllegalArgumentException("--popular must not be negative: " + options.popular);
+            }
+
+            boolean sharded = options.shards > 1;
+            boolean budgeted = options.memoryBudget > 0;
+            if (sharded && budgeted) {
+                throw new IllegalArgumentException("--shards and --memory-budget can't be combined");
+            }
+            if (sharded || budgeted) {
+                String mode = sharded ? "--shards" : "--memory-budget";
+                String other = options.checkpointFile != null ? "--checkpoint"
+                        : options.resume ? "--resume"
+                        : options.hashFile != null ? "--delta"
+                        : options.plan != null ? "--plan"
+                        : options.binary ? "--binary"
+                        : options.popular > 0 ? "--popular"
+                        : null;
+                if (other != null) {
+                    throw new IllegalArgumentException(other + " can't be combined with " + mode);
+                }
+            }
+            if (options.plan != null && options.hashFile != null) {
+                // Deltas compare recommendation sets, which don't go through an execution plan
+                throw new IllegalArgumentException("--plan can't be combined with --delta");
+            }
+            if (options.resume && options.checkpointFile == null) {
+                throw new IllegalArgumentException("--resume needs --checkpoint");
+            }
+            int outputModes = (options.checkpointFile != null ? 1 : 0) + (options.hashFile != null ? 1 : 0)
+                    + (options.binary ? 1 : 0);
+            if (outputModes > 1) {
+                throw new IllegalArgumentException("Only one of --checkpoint, --delta and --binary can be given");
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[i];
+        }
+    }
+
     public static void main(String[] args) {
+        Options options;
         try {
-            MovieRecommendationSystem system = new MovieRecommendationSystem();
-            system.loadMovies("C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\movies.txt");
-            system.loadUsers("C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\users.txt");
-            system.generateRecommendations("C:\\Users\\Maria\\OneDrive\\Desktop\\Phase1\\Phase1\\src\\main\\java\\org\\example\\recommendations.txt");
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            run(options);
             System.out.println("Recommendations generated successfully!");
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+            // Non-zero so that callers such as ShardedBatchRunner can tell a failed run apart
+            System.exit(1);
+        }
+    }
+
+    private static void run(Options options) throws Exception {
+        if (options.shards > 1) {
+            new ShardedBatchRunner(options.shards).run(options.moviesFile, options.usersFile,
+                    options.recommendationsFile);
+            return;
+        }
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        if (options.memoryBudget > 0) {
+            system.loadMovies(options.moviesFile);
+            system.generateRecommendationsWithBudget(options.usersFile, options.recommendationsFile,
+                    options.memoryBudget);
+            return;
+        }
+
+        if (options.popular > 0) {
+            system.enablePopularityFallback(options.popular);
+        }
+        if (options.plan != null) {
+            system.forcePlan(options.plan, options.plan == ExecutionPlan.Strategy.PARALLEL
+                    ? Runtime.getRuntime().availableProcessors() : 1);
+        }
+        system.loadMovies(options.moviesFile);
+        system.loadUsers(options.usersFile);
+        long unknown = system.snapshot().getUnknownMovieReferences();
+        if (unknown > 0) {
+            System.out.println("Warning: " + unknown + " liked movie IDs don't match any movie and were ignored");
+        }
+        long ambiguous = system.snapshot().getAmbiguousMovieReferences();
+        if (ambiguous > 0) {
+            System.out.println("Warning: " + ambiguous + " liked titles match several movies and were ignored");
+        }
+        if (options.checkpointFile != null) {
+            system.enableCheckpoints(options.checkpointFile, CHECKPOINT_INTERVAL_MILLIS);
+        }
+        if (options.hashFile != null) {
+            int changed = system.generateDelta(options.previousFile, options.recommendationsFile, options.hashFile);
+            System.out.println(changed + " users changed since the previous run");
+        } else if (options.binary) {
+            system.generateBinaryRecommendations(options.recommendationsFile);
+        } else if (options.resume) {
+            system.resumeRecommendations(options.recommendationsFile);
+        } else {
+            system.generateRecommendations(options.recommendationsFile);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,34 +1,80 @@
 package org.example;
 
+// A movie's strings live in a StringArena; the loaders share one arena per file, so genres are
+// stored once per catalog rather than once per movie. Null strings and genres are kept as null.
 public class Movie {
-    private String title;
-    private String id;
-    private String[] genres;
+    private final StringArena arena;
+    private final int title;
+    private final int id;
+    private final int[] genres;
 
     public Movie(String title, String id, String[] genres) {
-        this.title = title;
-        this.id = id;
-        this.genres = genres;
+        this(new StringArena(arenaBytes(title, id, genres)), title, id, genres);
+    }
+
+    Movie(StringArena arena, String title, String id, String[] genres) {
+        this.arena = arena;
+        this.title = arena.add(title);
+        this.id = arena.add(id);
+        if (genres == null) {
+            this.genres = null;
+            return;
+        }
+        this.genres = new int[genres.length];
+        for (int i = 0; i < genres.length; i++) {
+            this.genres[i] = arena.intern(genres[i]);
+        }
+    }
+
+    private static int arenaBytes(String title, String id, String[] genres) {
+        int bytes = StringArena.lengthOf(title) + StringArena.lengthOf(id) + 2;
+        if (genres != null) {
+            for (String genre : genres) {
+                bytes += StringArena.lengthOf(genre) + 1;
+            }
+        }
+        return bytes;
     }
 
     public String getTitle() {
-        return title;
+        return arena.get(title);
     }
 
     public String getId() {
-        return id;
+        return arena.get(id);
     }
 
+    // A new array decoded from the arena on every call. Unlike before the arenas, it is neither the
+    // array passed to the constructor nor shared between calls, so changing it doesn't change the movie.
     public String[] getGenres() {
-        return genres;
+        if (genres == null) {
+            return null;
+        }
+        String[] genreStrings = new String[genres.length];
+        for (int i = 0; i < genres.length; i++) {
+            genreStrings[i] = arena.get(genres[i]);
+        }
+        return genreStrings;
+    }
+
+    StringArena arena() {
+        return arena;
+    }
+
+    int titleHandle() {
+        return title;
+    }
+
+    int idHandle() {
+        return id;
     }
 
     public boolean hasGenre(String genre) {
-        for (String g : genres) {
+        for (String g : getGenres()) {
             if (g.trim().equalsIgnoreCase(genre.trim())) {
                 return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+}
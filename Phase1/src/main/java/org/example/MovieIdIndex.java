@@ -0,0 +1,118 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Movie ID -> catalog index. Valid movie IDs end in 3 digits that are unique across the catalog
+// (see Validator.validateMovieId), so those digits are a perfect hash: one int slot per possible
+// number, checked against the full ID on lookup. IDs that don't fit the grammar, or whose number
+// is already taken, go to a small open-addressing table instead. As with the linear scan this
+// replaces, the first movie with an ID wins. IDs are kept and compared as UTF-8, so liked IDs in a
+// user's StringArena are looked up without decoding them.
+final class MovieIdIndex {
+    static final int NOT_FOUND = -1;
+    private static final int SUFFIX_SLOTS = 1000;
+
+    private final byte[][] ids;
+    // Catalog index per 3-digit suffix, or NOT_FOUND
+    private final int[] bySuffix = new int[SUFFIX_SLOTS];
+    // Open addressing with linear probing over catalog indexes plus one; 0 is an empty slot
+    private final int[] overflowSlots;
+    private final int overflowCount;
+
+    MovieIdIndex(List<Movie> movies) {
+        ids = new byte[movies.size()][];
+        Arrays.fill(bySuffix, NOT_FOUND);
+        int[] overflow = new int[movies.size()];
+        int overflowSize = 0;
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            byte[] id = movie.arena().bytes(movie.idHandle());
+            ids[i] = id;
+            int suffix = suffixOf(id, 0, id.length);
+            if (suffix >= 0 && bySuffix[suffix] == NOT_FOUND) {
+                bySuffix[suffix] = i;
+            } else if (suffix < 0 || !Arrays.equals(ids[bySuffix[suffix]], id)) {
+                overflow[overflowSize++] = i;
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, overflowSize) * 2) << 1;
+        overflowSlots = new int[capacity];
+        int count = 0;
+        for (int k = 0; k < overflowSize; k++) {
+            byte[] id = ids[overflow[k]];
+            int slot = StringArena.stringHash(id, 0, id.length) & (capacity - 1);
+            while (overflowSlots[slot] != 0 && !Arrays.equals(ids[overflowSlots[slot] - 1], id)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (overflowSlots[slot] == 0) {
+                overflowSlots[slot] = overflow[k] + 1;
+                count++;
+            }
+        }
+        overflowCount = count;
+    }
+
+    int indexOf(String id) {
+        byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+        return indexOf(utf8, 0, utf8.length);
+    }
+
+    // The ID at handle in arena
+    int indexOf(StringArena arena, int handle) {
+        if (handle == StringArena.NULL) {
+            return NOT_FOUND;
+        }
+        return indexOf(arena.chunk(handle), arena.start(handle), arena.length(handle));
+    }
+
+    private int indexOf(byte[] utf8, int from, int length) {
+        int suffix = suffixOf(utf8, from, length);
+        if (suffix >= 0) {
+            int index = bySuffix[suffix];
+            if (index != NOT_FOUND && idEquals(index, utf8, from, length)) {
+                return index;
+            }
+        }
+        if (overflowCount == 0) {
+            return NOT_FOUND;
+        }
+        int mask = overflowSlots.length - 1;
+        for (int slot = StringArena.stringHash(utf8, from, length) & mask; overflowSlots[slot] != 0;
+                slot = (slot + 1) & mask) {
+            if (idEquals(overflowSlots[slot] - 1, utf8, from, length)) {
+                return overflowSlots[slot] - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // IDs that could not use their suffix slot
+    int overflowCount() {
+        return overflowCount;
+    }
+
+    private boolean idEquals(int index, byte[] utf8, int from, int length) {
+        byte[] id = ids[index];
+        return Arrays.equals(id, 0, id.length, utf8, from, from + length);
+    }
+
+    // The trailing 3-digit number of an ID, or -1. UTF-8 continuation bytes are never ASCII
+    // digits, so this matches the last 3 chars of the decoded ID.
+    private static int suffixOf(byte[] utf8, int from, int length) {
+        if (length < 3) {
+            return -1;
+        }
+        int suffix = 0;
+        for (int i = from + length - 3; i < from + length; i++) {
+            int c = utf8[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            suffix = suffix * 10 + (c - '0');
+        }
+        return suffix;
+    }
+}
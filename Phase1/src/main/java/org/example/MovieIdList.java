@@ -0,0 +1,36 @@
+package org.example;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// The movie IDs seen so far while loading, kept as hash sets of the IDs and of their number parts,
+// so Validator.validateMovieIdIndexed checks duplicates in O(1) instead of scanning every earlier ID
+final class MovieIdList {
+    private final Set<String> idSet = new HashSet<>();
+    private final Set<String> numberSet = new HashSet<>();
+
+    boolean contains(String id) {
+        return idSet.contains(id);
+    }
+
+    void add(String id) {
+        idSet.add(id);
+        String numbers = numbersOf(id);
+        if (!numbers.isEmpty()) {
+            numberSet.add(numbers);
+        }
+    }
+
+    boolean containsNumbers(String numbers) {
+        return numberSet.contains(numbers);
+    }
+
+    // Everything after the leading non-digit characters, as Validator compares it
+    static String numbersOf(String id) {
+        int i = 0;
+        while (i < id.length() && !Character.isDigit(id.charAt(i))) {
+            i++;
+        }
+        return id.substring(i);
+    }
+}
@@ -1,22 +1,49 @@
 package org.example;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MovieRecommendationSystem {
-    private List<Movie> movies;
-    private List<User> users;
-    private String firstError = null;
+    // Readers take the current snapshot without locking; loaders build the next one and swap it in
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private Path checkpointFile = null;
+    private long checkpointIntervalMillis;
+    // Likes per movie of the loaded users; only counted while the popularity fallback is enabled
+    private final PopularityIndex popularity = new PopularityIndex();
+    private int popularTopN = 0;
+    private final ExecutionPlanner planner = new ExecutionPlanner();
+    // Set by forcePlan; null lets the planner choose
+    private ExecutionPlan.Strategy forcedStrategy = null;
+    private int forcedParallelism = 1;
+    // Users whose matches a parallel plan computes per task
+    private static final int USERS_PER_TASK = 1024;
     
     public MovieRecommendationSystem() {
-        movies = new ArrayList<>();
-        users = new ArrayList<>();
     }
     
-    public void loadMovies(String filePath) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(filePath));
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+    
+    public synchronized void loadMovies(String filePath) throws IOException {
+        CatalogSnapshot current = snapshot.get();
+        List<Movie> movies = new ArrayList<>(current.getMovies());
+        String firstError = current.getFirstError();
+        
+        BufferedReader reader = CompressedFiles.openReader(filePath);
         String line;
-        List<String> existingMovieIds = new ArrayList<>();
+        MovieIdList existingMovieIds = new MovieIdList();
+        // Shared by the movies of this file, so each genre is stored once
+        StringArena arena = new StringArena();
         
         while ((line = reader.readLine()) != null && firstError == null) {
             String[] parts = line.split(",");
@@ -31,16 +58,14 @@ public class MovieRecommendationSystem {
             String titleError = Validator.validateMovieTitle(title);
             if (titleError != null) {
                 firstError = titleError;
-                reader.close();
-                return;
+                break;
             }
             
             // Validate movie ID with existing IDs
-            String idError = Validator.validateMovieId(id, title, existingMovieIds);
+            String idError = Validator.validateMovieIdIndexed(id, title, existingMovieIds);
             if (idError != null) {
                 firstError = idError;
-                reader.close();
-                return;
+                break;
             }
             
             existingMovieIds.add(id);
@@ -56,23 +81,46 @@ public class MovieRecommendationSystem {
                 genres[i] = genres[i].trim();
             }
             
-            movies.add(new Movie(title, id, genres));
+            movies.add(new Movie(arena, title, id, genres));
         }
         
         reader.close();
+        publish(current.withMovies(movies, firstError));
     }
     
-    public void loadUsers(String filePath) throws IOException {
+    public synchronized void loadUsers(String filePath) throws IOException {
+        CatalogSnapshot current = snapshot.get();
         // If we already found an error in movies, don't process users
-        if (firstError != null) {
+        if (current.getFirstError() != null) {
             return;
         }
         
-        BufferedReader reader = new BufferedReader(new FileReader(filePath));
+        List<User> users = new ArrayList<>(current.getUsers());
+        BufferedReader reader = CompressedFiles.openReader(filePath);
+        String firstError = readUsers(reader, new HashSet<>(), new StringArena(), users::add);
+        reader.close();
+        publish(current.withUsers(users, firstError));
+    }
+    
+    // Receives the users of a users file in file order
+    interface UserSink {
+        // Called for every header that passed validation, before its liked-IDs line is read
+        default void acceptId(String id) throws IOException {
+        }
+        
+        void accept(User user) throws IOException;
+    }
+    
+    // Parses two-line user records, handing every valid user to sink in file order.
+    // User IDs are checked for uniqueness against userIdSet; with a null set that check is left
+    // to the sink. The users' strings go to arena, and to new arenas once it is full, so sinks that
+    // clear arenas should clear user.arena(). Returns the first validation error, or null when
+    // the whole input is valid.
+    static String readUsers(BufferedReader reader, Set<String> userIdSet, StringArena arena, UserSink sink)
+            throws IOException {
         String line;
-        Set<String> userIdSet = new HashSet<>();
         
-        while ((line = reader.readLine()) != null && firstError == null) {
+        while ((line = reader.readLine()) != null) {
             String[] parts = line.split(",");
             if (parts.length != 2) {
                 continue; // Skip invalid lines
@@ -85,21 +133,19 @@ public class MovieRecommendationSystem {
             // Validate user name and ID
             String nameError = Validator.validateUserName(name);
             if (nameError != null) {
-                firstError = nameError;
-                reader.close();
-                return;
+                return nameError;
             }
             
             // Validate user ID including uniqueness check
             String idError = Validator.validateUserId(id, userIdSet);
             if (idError != null) {
-                firstError = idError;
-                reader.close();
-                return;
+                return idError;
             }
             
-            userIdSet.add(id);
-            User user = new User(name, id);
+            if (userIdSet != null) {
+                userIdSet.add(id);
+            }
+            sink.acceptId(id);
             
             // Read liked movie IDs
             line = reader.readLine();
@@ -108,75 +154,309 @@ public class MovieRecommendationSystem {
             }
             
             String[] likedMovieIds = line.split(",");
+            if (!arena.hasRoomFor(likedMovieIds.length + 2, name.length() + id.length() + line.length())) {
+                arena = new StringArena();
+            }
+            User user = new User(arena, name, id);
             for (String movieId : likedMovieIds) {
                 user.addLikedMovieId(movieId.trim());
             }
             
-            users.add(user);
+            sink.accept(user);
         }
         
-        reader.close();
+        return null;
     }
     
+    // Parallel equivalent of loadUsers for large files: the file is parsed in byte-range shards
+    public void loadUsersSharded(String filePath) throws IOException {
+        loadUsersSharded(filePath, new ShardedUserReader());
+    }
+    
+    public synchronized void loadUsersSharded(String filePath, ShardedUserReader reader) throws IOException {
+        CatalogSnapshot current = snapshot.get();
+        // If we already found an error in movies, don't process users
+        if (current.getFirstError() != null) {
+            return;
+        }
+        
+        if (CompressedFiles.isCompressed(filePath)) {
+            // A compressed file can't be split into byte ranges; it is decompressed ahead instead
+            loadUsers(filePath);
+            return;
+        }
+        ShardedUserReader.Result result = reader.read(filePath);
+        List<User> users = new ArrayList<>(current.getUsers());
+        users.addAll(result.getUsers());
+        publish(current.withUsers(users, result.getFirstError()));
+    }
+    
+    // Serves users whose likes match no other movie's genres with the topN most liked movies
+    // (minus those they liked) instead of "No recommendations". Off by default.
+    public synchronized void enablePopularityFallback(int topN) {
+        if (topN <= 0) {
+            throw new IllegalArgumentException("Number of popular movies must be positive: " + topN);
+        }
+        this.popularTopN = topN;
+        publish(snapshot.get());
+    }
+    
+    private void publish(CatalogSnapshot next) {
+        if (popularTopN > 0) {
+            popularity.update(next);
+            next = next.withPopularMovies(popularity, popularTopN);
+        }
+        snapshot.set(next);
+    }
+    
+    String getFirstError() {
+        return snapshot.get().getFirstError();
+    }
+    
+    // Records progress of generateRecommendations in checkpointFilePath roughly every intervalMillis,
+    // so that an interrupted run can be continued with resumeRecommendations
+    public void enableCheckpoints(String checkpointFilePath, long intervalMillis) {
+        this.checkpointFile = Path.of(checkpointFilePath);
+        this.checkpointIntervalMillis = intervalMillis;
+    }
+    
+    // Makes generateRecommendations use the given strategy (and degree, for PARALLEL) instead of the
+    // cheapest plan; null goes back to cost-based planning. Meant for testing and benchmarks.
+    public void forcePlan(ExecutionPlan.Strategy strategy, int parallelism) {
+        if (strategy != null) {
+            ExecutionPlan.checkParallelism(strategy, parallelism);
+        }
+        this.forcedStrategy = strategy;
+        this.forcedParallelism = parallelism;
+    }
+    
+    // The output is gzip-compressed when its name ends in ".gz"
     public void generateRecommendations(String outputFilePath) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath));
+        checkCheckpointable(outputFilePath);
+        // One snapshot for the whole run, so a concurrent reload cannot change it halfway
+        CatalogSnapshot catalog = snapshot.get();
+        WritableByteChannel channel = CompressedFiles.openChannel(Path.of(outputFilePath));
+        RecommendationWriter writer = new RecommendationWriter(channel);
         
         // If we found an error earlier, just output that error
-        if (firstError != null) {
-            writer.write(firstError);
-            writer.newLine();
+        if (catalog.getFirstError() != null) {
+            writer.writeError(catalog.getFirstError());
             writer.close();
             return;
         }
         
-        for (User user : users) {
-            writer.write(user.getName() + "," + user.getId());
+        writeRecommendations(catalog, channel, writer, 0);
+    }
+    
+    // Same recommendations in the compact format of BinaryRecommendationWriter, which lists each
+    // title once and refers to movies by index; read it back with BinaryRecommendationReader.
+    // Not with checkpoints or compression, since the offset index is written at the end.
+    public void generateBinaryRecommendations(String outputFilePath) throws IOException {
+        if (checkpointFile != null || CompressedFiles.isCompressed(outputFilePath)) {
+            throw new IllegalStateException("Binary output needs an uncompressed file without checkpoints");
+        }
+        CatalogSnapshot catalog = snapshot.get();
+        try (BinaryRecommendationWriter writer = new BinaryRecommendationWriter(Path.of(outputFilePath))) {
+            if (catalog.getFirstError() != null) {
+                writer.writeError(catalog.getFirstError());
+                return;
+            }
+            writer.writeHeader(catalog);
+            forEachMatch(catalog, 0, (userIndex, matches) -> writer.writeUser(catalog, userIndex, matches));
+        }
+    }
+    
+    // Continues an interrupted generateRecommendations run from its last checkpoint: the output is
+    // truncated to the checkpointed offset and generation restarts with the following user.
+    // Without a checkpoint this is a full run.
+    public void resumeRecommendations(String outputFilePath) throws IOException {
+        if (checkpointFile == null) {
+            throw new IllegalStateException("Checkpoints are not enabled");
+        }
+        checkCheckpointable(outputFilePath);
+        CatalogSnapshot catalog = snapshot.get();
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        if (checkpoint == null || catalog.getFirstError() != null) {
+            generateRecommendations(outputFilePath);
+            return;
+        }
+        
+        List<User> users = catalog.getUsers();
+        int lastUserIndex = checkpoint.getLastUserIndex();
+        if (lastUserIndex >= users.size()
+                || (lastUserIndex >= 0 && !users.get(lastUserIndex).getId().equals(checkpoint.getLastUserId()))) {
+            throw new IOException("Checkpoint " + checkpointFile + " does not match the loaded users");
+        }
+        
+        FileChannel channel = FileChannel.open(Path.of(outputFilePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        if (channel.size() < checkpoint.getOffset()) {
+            channel.close();
+            throw new IOException("Output " + outputFilePath + " is shorter than its checkpoint");
+        }
+        channel.truncate(checkpoint.getOffset());
+        channel.position(checkpoint.getOffset());
+        writeRecommendations(catalog, channel, new RecommendationWriter(channel), lastUserIndex + 1);
+    }
+    
+    // Streams the users file in batches whose estimated heap use stays within memoryBudgetBytes,
+    // instead of loading every user first. Movies must be loaded; loaded users are not used.
+    public void generateRecommendationsWithBudget(String usersFilePath, String outputFilePath,
+                                                  long memoryBudgetBytes) throws IOException {
+        new BudgetedBatchRunner(this, memoryBudgetBytes).run(usersFilePath, outputFilePath);
+    }
+    
+    // Writes only the users whose recommendations differ from a previous run to deltaFilePath.
+    // previousFilePath may be an earlier recommendations file or hash file (or null for a first run);
+    // when hashFilePath is given, this run's hashes are saved there for the next delta.
+    // Returns the number of records written to the delta.
+    public int generateDelta(String previousFilePath, String deltaFilePath, String hashFilePath) throws IOException {
+        CatalogSnapshot catalog = snapshot.get();
+        RecommendationDelta delta = previousFilePath != null && Files.exists(Path.of(previousFilePath))
+                ? RecommendationDelta.read(previousFilePath)
+                : RecommendationDelta.empty();
+        // UTF-8 and compressed for a ".gz" name, like the recommendations output
+        BufferedWriter writer = CompressedFiles.openWriter(Path.of(deltaFilePath));
+        
+        // If we found an error earlier, just output that error
+        if (catalog.getFirstError() != null) {
+            writer.write(catalog.getFirstError());
             writer.newLine();
-            
-            Set<String> recommendedMovies = new HashSet<>();
-            Set<String> likedGenres = new HashSet<>();
-            
-            // Find genres of liked movies
-            for (String likedMovieId : user.getLikedMovieIds()) {
-                for (Movie movie : movies) {
-                    if (movie.getId().equals(likedMovieId)) {
-                        for (String genre : movie.getGenres()) {
-                            likedGenres.add(genre);
-                        }
-                        break;
-                    }
-                }
+            writer.close();
+            return 0;
+        }
+        
+        List<User> users = catalog.getUsers();
+        int written = 0;
+        long[] hashes = new long[users.size()];
+        for (int userIndex = 0; userIndex < users.size(); userIndex++) {
+            User user = users.get(userIndex);
+            Set<String> recommendedMovies = catalog.recommend(userIndex);
+            hashes[userIndex] = RecommendationDelta.hash(recommendedMovies);
+            if (delta.writeIfChanged(writer, user, recommendedMovies, hashes[userIndex])) {
+                written++;
             }
+        }
+        written += delta.writeRemoved(writer);
+        writer.close();
+        
+        if (hashFilePath != null) {
+            RecommendationDelta.writeHashFile(hashFilePath, users, hashes);
+        }
+        return written;
+    }
+    
+    // Checkpoint offsets are file positions, which a compressed output doesn't have
+    private void checkCheckpointable(String outputFilePath) {
+        if (checkpointFile != null && CompressedFiles.isCompressed(outputFilePath)) {
+            throw new IllegalStateException("Checkpoints need an uncompressed output file");
+        }
+    }
+    
+    private void writeRecommendations(CatalogSnapshot catalog, WritableByteChannel channel,
+                                      RecommendationWriter writer,
+                                      int fromUser) throws IOException {
+        List<User> users = catalog.getUsers();
+        long checkpointIntervalNanos = checkpointIntervalMillis * 1_000_000L;
+        long[] lastCheckpoint = { System.nanoTime() };
+        
+        forEachMatch(catalog, fromUser, (userIndex, matches) -> {
+            writer.writeUser(catalog, userIndex, matches);
             
-            // Find movies with the same genres
-            for (Movie movie : movies) {
-                boolean isLiked = false;
-                for (String likedMovieId : user.getLikedMovieIds()) {
-                    if (movie.getId().equals(likedMovieId)) {
-                        isLiked = true;
-                        break;
+            // Reading the clock is only worth it every few hundred users
+            if (checkpointFile != null && (userIndex & 255) == 0
+                    && System.nanoTime() - lastCheckpoint[0] >= checkpointIntervalNanos) {
+                checkpoint((FileChannel) channel, writer, userIndex, users.get(userIndex));
+                lastCheckpoint[0] = System.nanoTime();
+            }
+        });
+        
+        writer.close();
+        // The run is complete, nothing left to resume
+        if (checkpointFile != null) {
+            Files.deleteIfExists(checkpointFile);
+        }
+    }
+    
+    private interface MatchSink {
+        void accept(int userIndex, long[] matches) throws IOException;
+    }
+    
+    // Computes the matches of every user from fromUser on with the planned strategy and hands them
+    // to sink in user order. The matches may be scratch memory that is reused for the next user.
+    private void forEachMatch(CatalogSnapshot catalog, int fromUser, MatchSink sink) throws IOException {
+        List<User> users = catalog.getUsers();
+        CatalogStatistics statistics = catalog.getStatistics();
+        ExecutionPlan plan = forcedStrategy != null
+                ? planner.force(statistics, forcedStrategy, forcedParallelism)
+                : planner.plan(statistics);
+        GenreIndex index = plan.usesIndex() ? catalog.genreIndex() : null;
+        // Workers compute the matches of the next few blocks while this thread writes the current
+        // one, so the output keeps the user order
+        ForkJoinPool pool = plan.getStrategy() == ExecutionPlan.Strategy.PARALLEL
+                ? new ForkJoinPool(plan.getParallelism())
+                : null;
+        Deque<Future<long[][]>> pending = new ArrayDeque<>();
+        int nextBlock = fromUser;
+        // The sequential plans reuse one scratch, so the per-user path allocates nothing
+        RecommendationScratch scratch = pool == null ? catalog.newScratch() : null;
+        
+        try {
+            for (int block = fromUser; block < users.size(); block += USERS_PER_TASK) {
+                int blockEnd = Math.min(users.size(), block + USERS_PER_TASK);
+                long[][] blockMatches = null;
+                if (pool != null) {
+                    while (nextBlock < users.size() && pending.size() < 2 * plan.getParallelism()) {
+                        int from = nextBlock;
+                        int to = Math.min(users.size(), from + USERS_PER_TASK);
+                        pending.add(pool.submit(() -> matchesOf(catalog, index, from, to)));
+                        nextBlock = to;
                     }
+                    blockMatches = await(pending.removeFirst());
                 }
                 
-                if (!isLiked) {
-                    for (String genre : movie.getGenres()) {
-                        if (likedGenres.contains(genre)) {
-                            recommendedMovies.add(movie.getTitle());
-                            break;
-                        }
-                    }
+                for (int userIndex = block; userIndex < blockEnd; userIndex++) {
+                    sink.accept(userIndex, blockMatches != null
+                            ? blockMatches[userIndex - block]
+                            : catalog.recommendedMovies(userIndex, index, scratch));
                 }
             }
-            
-            // Write recommendations
-            if (recommendedMovies.isEmpty()) {
-                writer.write("No recommendations");
-            } else {
-                writer.write(String.join(",", recommendedMovies));
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
             }
-            writer.newLine();
         }
-        
-        writer.close();
+    }
+    
+    private static long[][] matchesOf(CatalogSnapshot catalog, GenreIndex index, int fromUser, int toUser) {
+        // One scratch per task; only the results, which outlive it, are copied
+        RecommendationScratch scratch = catalog.newScratch();
+        long[][] matches = new long[toUser - fromUser][];
+        for (int userIndex = fromUser; userIndex < toUser; userIndex++) {
+            matches[userIndex - fromUser] = catalog.recommendedMovies(userIndex, index, scratch).clone();
+        }
+        return matches;
+    }
+    
+    private static long[][] await(Future<long[][]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing recommendations");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    private void checkpoint(FileChannel channel, RecommendationWriter writer, int userIndex, User user)
+            throws IOException {
+        writer.flush();
+        // The output must be on disk before a checkpoint can point past it
+        channel.force(false);
+        new Checkpoint(userIndex, channel.position(), user.getId()).write(checkpointFile);
     }
 }
\ No newline at end of file
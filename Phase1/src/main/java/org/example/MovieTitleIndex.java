@@ -0,0 +1,135 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Normalized movie title -> catalog index, for users files that list liked movies by title
+// instead of ID. Titles match ignoring case, leading and trailing whitespace, and the length of
+// whitespace runs, so " the  GODFATHER" finds "The Godfather". Lookups take the token as UTF-8,
+// such as a handle into a user's StringArena, and normalize it on the fly while hashing and
+// comparing, so they take time linear in its length and allocate nothing.
+// A title shared by several movies is ambiguous rather than resolved to one of them.
+final class MovieTitleIndex {
+    static final int NOT_FOUND = -1;
+    static final int AMBIGUOUS = -2;
+
+    // Open addressing with linear probing; keys are the code points of normalized titles, null for
+    // empty slots
+    private final int[][] keys;
+    private final int[] values;
+
+    MovieTitleIndex(List<Movie> movies) {
+        int capacity = Integer.highestOneBit(Math.max(1, movies.size()) * 2) << 1;
+        keys = new int[capacity][];
+        values = new int[capacity];
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            StringArena arena = movie.arena();
+            int title = movie.titleHandle();
+            byte[] chunk = arena.chunk(title);
+            int start = arena.start(title);
+            int length = arena.length(title);
+            int slot = normalizedHash(chunk, start, length) & (capacity - 1);
+            while (keys[slot] != null && !equalsNormalized(keys[slot], chunk, start, length)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (keys[slot] == null) {
+                keys[slot] = normalize(chunk, start, length);
+                values[slot] = i;
+            } else {
+                values[slot] = AMBIGUOUS;
+            }
+        }
+    }
+
+    // Catalog index of the movie with this title, NOT_FOUND or AMBIGUOUS
+    int indexOf(String title) {
+        byte[] utf8 = title.getBytes(StandardCharsets.UTF_8);
+        return indexOf(utf8, 0, utf8.length);
+    }
+
+    // Same for the title at handle in arena
+    int indexOf(StringArena arena, int handle) {
+        if (handle == StringArena.NULL) {
+            return NOT_FOUND;
+        }
+        return indexOf(arena.chunk(handle), arena.start(handle), arena.length(handle));
+    }
+
+    private int indexOf(byte[] utf8, int from, int length) {
+        int mask = keys.length - 1;
+        for (int slot = normalizedHash(utf8, from, length) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (equalsNormalized(keys[slot], utf8, from, length)) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // Lower-cased code points with whitespace runs collapsed to one space and trimmed
+    static int[] normalize(byte[] utf8, int from, int length) {
+        int[] normalized = new int[length];
+        int count = 0;
+        boolean pendingSpace = false;
+        for (int i = from, end = from + length; i < end; i += StringArena.sequenceLength(utf8[i])) {
+            int c = StringArena.codePointAt(utf8, i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = count > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized[count++] = ' ';
+                pendingSpace = false;
+            }
+            normalized[count++] = Character.toLowerCase(c);
+        }
+        return Arrays.copyOf(normalized, count);
+    }
+
+    // Arrays.hashCode(normalize(...)), without building the normalized form
+    static int normalizedHash(byte[] utf8, int from, int length) {
+        int hash = 1;
+        boolean started = false;
+        boolean pendingSpace = false;
+        for (int i = from, end = from + length; i < end; i += StringArena.sequenceLength(utf8[i])) {
+            int c = StringArena.codePointAt(utf8, i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = 31 * hash + ' ';
+                pendingSpace = false;
+            }
+            hash = 31 * hash + Character.toLowerCase(c);
+            started = true;
+        }
+        return hash;
+    }
+
+    // Arrays.equals(normalize(...), key) for a normalized key, without building the normalized form
+    private static boolean equalsNormalized(int[] key, byte[] utf8, int from, int length) {
+        int k = 0;
+        boolean started = false;
+        boolean pendingSpace = false;
+        for (int i = from, end = from + length; i < end; i += StringArena.sequenceLength(utf8[i])) {
+            int c = StringArena.codePointAt(utf8, i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                if (k == key.length || key[k++] != ' ') {
+                    return false;
+                }
+                pendingSpace = false;
+            }
+            if (k == key.length || key[k++] != Character.toLowerCase(c)) {
+                return false;
+            }
+            started = true;
+        }
+        return k == key.length;
+    }
+}
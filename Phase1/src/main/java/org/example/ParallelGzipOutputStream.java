@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+// Gzip output compressed on several threads, the way pigz does it: the data is cut into blocks,
+// each block is deflated on its own as a complete gzip member, and the members are written in
+// order. Concatenated members are a valid gzip file that GZIPInputStream, gunzip and zcat read as
+// one stream. At most two blocks per thread are in flight, which bounds the memory used.
+public class ParallelGzipOutputStream extends OutputStream {
+    static final int DEFAULT_BLOCK_BYTES = 1 << 20;
+
+    private final OutputStream out;
+    private final ExecutorService pool;
+    private final int blockBytes;
+    private final int maxInFlight;
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private byte[] block;
+    private int used = 0;
+    private boolean closed = false;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out, ForkJoinPool.commonPool(), DEFAULT_BLOCK_BYTES);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService pool, int blockBytes) {
+        if (blockBytes <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockBytes);
+        }
+        this.out = out;
+        this.pool = pool;
+        this.blockBytes = blockBytes;
+        this.maxInFlight = 2 * Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.block = new byte[blockBytes];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (used == blockBytes) {
+            submitBlock();
+        }
+        block[used++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (used == blockBytes) {
+                submitBlock();
+            }
+            int count = Math.min(length, blockBytes - used);
+            System.arraycopy(bytes, offset, block, used, count);
+            used += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    // Compresses what is buffered and waits until every block is written out
+    @Override
+    public void flush() throws IOException {
+        if (used > 0) {
+            submitBlock();
+        }
+        while (!inFlight.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            for (Future<byte[]> pending : inFlight) {
+                pending.cancel(true);
+            }
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (inFlight.size() == maxInFlight) {
+            writeOldest();
+        }
+        byte[] data = used == blockBytes ? block : Arrays.copyOf(block, used);
+        inFlight.add(pool.submit(() -> compress(data)));
+        block = new byte[blockBytes];
+        used = 0;
+    }
+
+    private void writeOldest() throws IOException {
+        try {
+            out.write(inFlight.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Compressing a block failed", e.getCause());
+        }
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member, 1 << 16)) {
+            gzip.write(data);
+        }
+        return member.toByteArray();
+    }
+}
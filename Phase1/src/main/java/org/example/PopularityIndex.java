@@ -0,0 +1,47 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Number of users that like each movie of the catalog, counted from the likes a snapshot resolved.
+// Only the popularity fallback reads it, so nothing is counted while the fallback is off. Counts
+// grow incrementally: an update only counts the users added since the previous one, and starts
+// over only when a movie load renumbers the catalog. Every movie has its own LongAdder, whose
+// cells are striped per thread, so counting the new users in parallel doesn't contend on the
+// popular movies.
+public class PopularityIndex {
+    private static final LongAdder[] NO_MOVIES = new LongAdder[0];
+
+    // The movie list the counts are indexed by, and how many of the snapshot's users are counted
+    private List<Movie> movies = null;
+    private LongAdder[] likes = NO_MOVIES;
+    private int countedUsers = 0;
+
+    // Counts the users of the snapshot that weren't counted yet. Later snapshots must keep the
+    // users counted before in front, as MovieRecommendationSystem's loaders do.
+    public synchronized void update(CatalogSnapshot snapshot) {
+        int users = snapshot.getUsers().size();
+        if (snapshot.getMovies() != movies || users < countedUsers) {
+            movies = snapshot.getMovies();
+            likes = new LongAdder[movies.size()];
+            for (int movie = 0; movie < likes.length; movie++) {
+                likes[movie] = new LongAdder();
+            }
+            countedUsers = 0;
+        }
+        LongAdder[] counts = likes;
+        IntStream.range(countedUsers, users).parallel().forEach(user -> {
+            // Resolved likes hold each movie once, so a user liking a movie twice still counts once
+            for (int movie : snapshot.likedMovies(user)) {
+                counts[movie].increment();
+            }
+        });
+        countedUsers = users;
+    }
+
+    // Users that like the movie at this catalog index, as of the last update
+    public synchronized long count(int movie) {
+        return movie < likes.length ? likes[movie].sum() : 0;
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Reads a source stream on a background thread, a few chunks ahead of the consumer. Wrapped around
+// a GZIPInputStream, decompression runs in parallel with the parser reading from this stream.
+// A failure of the source is rethrown to the consumer once it has read everything before it.
+public class ReadAheadInputStream extends InputStream {
+    static final int DEFAULT_CHUNK_BYTES = 1 << 16;
+    static final int DEFAULT_CHUNKS_AHEAD = 16;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private final Thread reader;
+    private volatile IOException failure;
+    private byte[] current = new byte[0];
+    private int position = 0;
+    private boolean ended = false;
+
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_CHUNK_BYTES, DEFAULT_CHUNKS_AHEAD);
+    }
+
+    public ReadAheadInputStream(InputStream source, int chunkBytes, int chunksAhead) {
+        this.chunks = new ArrayBlockingQueue<>(chunksAhead);
+        this.reader = new Thread(() -> readAhead(source, chunkBytes), "read-ahead");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readAhead(InputStream source, int chunkBytes) {
+        try (source) {
+            while (true) {
+                byte[] chunk = new byte[chunkBytes];
+                int n = source.readNBytes(chunk, 0, chunkBytes);
+                if (n == 0) {
+                    break;
+                }
+                chunks.put(n == chunkBytes ? chunk : Arrays.copyOf(chunk, n));
+                if (n < chunkBytes) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // The consumer closed this stream
+            return;
+        }
+        try {
+            chunks.put(END);
+        } catch (InterruptedException e) {
+            // The consumer closed this stream
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        ended = true;
+        reader.interrupt();
+    }
+
+    // False at the end of the stream
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+            if (ended) {
+                return false;
+            }
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading ahead", e);
+            }
+            position = 0;
+            if (current == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example;
+
+import java.io.*;
+import java.util.*;
+
+// Previous-run state for delta output: one compact 64-bit hash of the recommendation set per user.
+// The state is read either from a previous recommendations file or from a hash file written by an
+// earlier delta run, which is much smaller than the full output.
+//
+// Delta file records, in current user order followed by removed users in previous order:
+//   +name,id  then the recommendations line   (user added since the previous run)
+//   ~name,id  then the recommendations line   (user whose recommendations changed)
+//   -name,id                                  (user no longer present)
+// User names only contain letters and spaces, so the marker character is unambiguous.
+public class RecommendationDelta {
+    private static final int HASH_FILE_MAGIC = 0x52484131; // "RHA1"
+    private static final String NO_RECOMMENDATIONS = "No recommendations";
+
+    static class Entry {
+        final String name;
+        final long hash;
+
+        Entry(String name, long hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+    }
+
+    // Keyed by user ID, in the previous run's user order
+    private final Map<String, Entry> previous;
+
+    private RecommendationDelta(Map<String, Entry> previous) {
+        this.previous = previous;
+    }
+
+    public static RecommendationDelta empty() {
+        return new RecommendationDelta(new LinkedHashMap<>());
+    }
+
+    // Detects whether the file is a hash file or a recommendations text file. A recommendations
+    // file may be gzip-compressed, as generateRecommendations writes it for a ".gz" name.
+    public static RecommendationDelta read(String filePath) throws IOException {
+        if (CompressedFiles.isCompressed(filePath)) {
+            return readRecommendationsFile(filePath);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            boolean hashFile;
+            try {
+                hashFile = in.readInt() == HASH_FILE_MAGIC;
+            } catch (EOFException e) {
+                hashFile = false;
+            }
+            if (hashFile) {
+                return readHashFile(in);
+            }
+        }
+        return readRecommendationsFile(filePath);
+    }
+
+    private static RecommendationDelta readHashFile(DataInputStream in) throws IOException {
+        Map<String, Entry> previous = new LinkedHashMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            String id = in.readUTF();
+            previous.put(id, new Entry(name, in.readLong()));
+        }
+        return new RecommendationDelta(previous);
+    }
+
+    private static RecommendationDelta readRecommendationsFile(String filePath) throws IOException {
+        Map<String, Entry> previous = new LinkedHashMap<>();
+        // Recommendations files are written as UTF-8 (RecommendationWriter)
+        BufferedReader reader = CompressedFiles.openReader(filePath);
+        String header;
+        while ((header = reader.readLine()) != null) {
+            String recommendations = reader.readLine();
+            int comma = header.lastIndexOf(',');
+            // An error output has no user records
+            if (recommendations == null || comma < 0) {
+                break;
+            }
+            Set<String> titles = new HashSet<>();
+            if (!recommendations.equals(NO_RECOMMENDATIONS)) {
+                titles.addAll(Arrays.asList(recommendations.split(",")));
+            }
+            previous.put(header.substring(comma + 1), new Entry(header.substring(0, comma), hash(titles)));
+        }
+        reader.close();
+        return new RecommendationDelta(previous);
+    }
+
+    public static void writeHashFile(String filePath, List<User> users, long[] hashes) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(HASH_FILE_MAGIC);
+            out.writeInt(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                out.writeUTF(users.get(i).getName());
+                out.writeUTF(users.get(i).getId());
+                out.writeLong(hashes[i]);
+            }
+        }
+    }
+
+    // Order-independent hash of a recommendation set: the sum of a 64-bit hash per title
+    public static long hash(Collection<String> titles) {
+        long sum = 0;
+        for (String title : titles) {
+            sum += hashTitle(title);
+        }
+        return sum;
+    }
+
+    private static long hashTitle(String title) {
+        // FNV-1a over the chars, then a final avalanche so that summing stays well distributed
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < title.length(); i++) {
+            h ^= title.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Writes the user's record to the delta if it is new or changed. Users seen here are
+    // consumed, so whatever is left afterwards was removed.
+    boolean writeIfChanged(BufferedWriter writer, User user, Set<String> recommendations, long hash) throws IOException {
+        Entry entry = previous.remove(user.getId());
+        if (entry != null && entry.hash == hash) {
+            return false;
+        }
+        writer.write((entry == null ? "+" : "~") + user.getName() + "," + user.getId());
+        writer.newLine();
+        writer.write(recommendations.isEmpty() ? NO_RECOMMENDATIONS : String.join(",", recommendations));
+        writer.newLine();
+        return true;
+    }
+
+    int writeRemoved(BufferedWriter writer) throws IOException {
+        for (Map.Entry<String, Entry> removed : previous.entrySet()) {
+            writer.write("-" + removed.getValue().name + "," + removed.getKey());
+            writer.newLine();
+        }
+        int count = previous.size();
+        previous.clear();
+        return count;
+    }
+}
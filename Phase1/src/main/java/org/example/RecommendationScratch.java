@@ -0,0 +1,39 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Working memory of CatalogSnapshot's recommendation kernel, reused from one user to the next so
+// that computing a user's matches allocates nothing. Not thread-safe: every thread that computes
+// recommendations keeps its own, sized for the snapshot's movies and genres.
+final class RecommendationScratch {
+    final long[] likedGenres;
+    // Liked movies as a bitset; the kernel clears the bits it set before returning
+    final long[] likedMovies;
+    // Candidates, then the result; valid until the next user
+    final long[] matches;
+    // Catalog indexes of a User's likes that aren't resolved in the snapshot yet
+    private int[] liked = new int[16];
+
+    RecommendationScratch(GenreColumns columns) {
+        this.likedGenres = columns.newMask();
+        this.likedMovies = columns.newMovieBitset();
+        this.matches = columns.newMovieBitset();
+    }
+
+    // Whether this scratch was sized for the same number of movies and genre words
+    boolean fits(GenreColumns columns) {
+        return likedGenres.length == columns.words() && matches.length == (columns.movieCount() + 63) >>> 6;
+    }
+
+    int[] liked(int capacity) {
+        if (liked.length < capacity) {
+            liked = new int[Math.max(capacity, liked.length * 2)];
+        }
+        return liked;
+    }
+
+    void clear() {
+        Arrays.fill(likedGenres, 0);
+        Arrays.fill(matches, 0);
+    }
+}
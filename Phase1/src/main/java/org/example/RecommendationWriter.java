@@ -0,0 +1,191 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Writes recommendation records as UTF-8 straight into a few large direct buffers and hands them
+// to the channel in one gathering write once they are all full. Titles are copied from the
+// byte forms the catalog snapshot encodes once, and names and IDs from the users' string arenas,
+// so no per-line Strings are built. Output is the same as the two-line record format:
+// "name,id", then the comma-separated titles or "No recommendations".
+public class RecommendationWriter implements Closeable {
+    static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    static final int BUFFER_COUNT = 4;
+    // Room for the longest UTF-8 sequence of one code point
+    static final int MIN_BUFFER_BYTES = 4;
+    private static final byte[] NO_RECOMMENDATIONS = "No recommendations".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer[] buffers;
+    private int current = 0;
+    // Reused for every user written, so a record costs no allocation
+    private RecommendationScratch scratch = null;
+
+    // Writes from the channel's current position
+    public RecommendationWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_BYTES);
+    }
+
+    RecommendationWriter(WritableByteChannel channel, int bufferBytes) {
+        if (bufferBytes < MIN_BUFFER_BYTES) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_BYTES + ": " + bufferBytes);
+        }
+        this.channel = channel;
+        this.buffers = new ByteBuffer[BUFFER_COUNT];
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(bufferBytes);
+        }
+    }
+
+    public void writeUser(CatalogSnapshot catalog, User user) throws IOException {
+        writeRecord(catalog, user, catalog.recommendedMovies(user, scratchFor(catalog)));
+    }
+
+    // The loaded user at userIndex, using the likes the snapshot resolved at load time
+    public void writeUser(CatalogSnapshot catalog, int userIndex) throws IOException {
+        writeRecord(catalog, catalog.getUsers().get(userIndex),
+                catalog.recommendedMovies(userIndex, null, scratchFor(catalog)));
+    }
+
+    // Same, with matches an execution plan already computed for that user
+    void writeUser(CatalogSnapshot catalog, int userIndex, long[] matches) throws IOException {
+        writeRecord(catalog, catalog.getUsers().get(userIndex), matches);
+    }
+
+    private RecommendationScratch scratchFor(CatalogSnapshot catalog) {
+        if (scratch == null || !scratch.fits(catalog.getGenreColumns())) {
+            scratch = catalog.newScratch();
+        }
+        return scratch;
+    }
+
+    private void writeRecord(CatalogSnapshot catalog, User user, long[] matches) throws IOException {
+        StringArena arena = user.arena();
+        write(arena, user.nameHandle());
+        writeByte(',');
+        write(arena, user.idHandle());
+        write(LINE_SEPARATOR);
+
+        boolean first = true;
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                if (!first) {
+                    writeByte(',');
+                }
+                write(catalog.titleUtf8((word << 6) + Long.numberOfTrailingZeros(bits)));
+                first = false;
+                bits &= bits - 1;
+            }
+        }
+        if (first) {
+            write(NO_RECOMMENDATIONS);
+        }
+        write(LINE_SEPARATOR);
+    }
+
+    // The whole output when validation failed: just the error line
+    public void writeError(String error) throws IOException {
+        writeChars(error);
+        write(LINE_SEPARATOR);
+    }
+
+    public void flush() throws IOException {
+        for (int i = 0; i <= current; i++) {
+            buffers[i].flip();
+        }
+        if (channel instanceof GatheringByteChannel) {
+            ByteBuffer last = buffers[current];
+            while (last.hasRemaining()) {
+                ((GatheringByteChannel) channel).write(buffers, 0, current + 1);
+            }
+        } else {
+            for (int i = 0; i <= current; i++) {
+                while (buffers[i].hasRemaining()) {
+                    channel.write(buffers[i]);
+                }
+            }
+        }
+        for (ByteBuffer buffer : buffers) {
+            buffer.clear();
+        }
+        current = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    private void write(StringArena arena, int handle) throws IOException {
+        write(arena.chunk(handle), arena.start(handle), arena.length(handle));
+    }
+
+    private void write(byte[] bytes, int from, int count) throws IOException {
+        int offset = from;
+        int end = from + count;
+        while (offset < end) {
+            ByteBuffer buffer = bufferWithRoom(1);
+            int length = Math.min(buffer.remaining(), end - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        bufferWithRoom(1).put((byte) b);
+    }
+
+    // Same bytes as getBytes(UTF_8), including '?' for unpaired surrogates, as in the arenas
+    private void writeChars(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bufferWithRoom(1).put((byte) c);
+            } else if (c < 0x800) {
+                bufferWithRoom(2).put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    bufferWithRoom(4)
+                            .put((byte) (0xF0 | (codePoint >> 18)))
+                            .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                            .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                            .put((byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    bufferWithRoom(1).put((byte) '?');
+                }
+            } else {
+                bufferWithRoom(3)
+                        .put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    // The current buffer if it has 'bytes' left, else the next one, flushing when all are used
+    private ByteBuffer bufferWithRoom(int bytes) throws IOException {
+        if (buffers[current].remaining() < bytes) {
+            if (current + 1 < buffers.length) {
+                current++;
+            } else {
+                flush();
+            }
+        }
+        return buffers[current];
+    }
+}
@@ -0,0 +1,277 @@
+package org.example;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+// Coordinator for running generateRecommendations across several local worker JVMs.
+// Users are validated once here, partitioned by ID hash into shard files and handed to workers
+// together with a snapshot of the movies file; the worker outputs are then merged back into a
+// single recommendations file in the original user order. The coordinator streams the users and
+// keeps none of them: the ID uniqueness check spills to disk (see ExternalDuplicateFinder), and
+// so does the shard sequence the merge replays.
+public class ShardedBatchRunner {
+    static final int MAX_SHARDS = 256;
+    // Heap for the user IDs the duplicate check buffers before spilling a sorted run
+    static final long DUPLICATE_CHECK_BYTES = 64L * 1024 * 1024;
+
+    private final int shards;
+    private final List<String> workerJvmArgs;
+    // Main, except in tests that need workers to misbehave
+    private final Class<?> workerMain;
+
+    public ShardedBatchRunner(int shards) {
+        this(shards, new ArrayList<>());
+    }
+
+    public ShardedBatchRunner(int shards, List<String> workerJvmArgs) {
+        this(shards, workerJvmArgs, Main.class);
+    }
+
+    ShardedBatchRunner(int shards, List<String> workerJvmArgs, Class<?> workerMain) {
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + shards);
+        }
+        this.shards = shards;
+        this.workerJvmArgs = workerJvmArgs;
+        this.workerMain = workerMain;
+    }
+
+    static int shardOf(String userId, int shards) {
+        return Math.floorMod(userId.hashCode(), shards);
+    }
+
+    public void run(String moviesFilePath, String usersFilePath, String outputFilePath) throws IOException {
+        Path output = Path.of(outputFilePath).toAbsolutePath();
+        Path workDir = Files.createTempDirectory(output.getParent(), "shards");
+        try {
+            // Workers all read this copy, so they see the same catalog even if the source changes
+            Path moviesSnapshot = workDir.resolve(
+                    CompressedFiles.isCompressed(moviesFilePath) ? "movies.txt.gz" : "movies.txt");
+            Files.copy(Path.of(moviesFilePath), moviesSnapshot, StandardCopyOption.REPLACE_EXISTING);
+
+            MovieRecommendationSystem system = new MovieRecommendationSystem();
+            system.loadMovies(moviesSnapshot.toString());
+            String error = system.getFirstError();
+
+            // One byte per user recording its shard, in input order, used to merge the outputs
+            Path order = workDir.resolve("order.bin");
+            if (error == null) {
+                error = partitionUsers(usersFilePath, workDir, order);
+            }
+            if (error != null) {
+                BufferedWriter writer = openOutput(outputFilePath);
+                writer.write(error);
+                writer.newLine();
+                writer.close();
+                return;
+            }
+
+            List<Process> workers = new ArrayList<>();
+            try {
+                for (int shard = 0; shard < shards; shard++) {
+                    workers.add(startWorker(moviesSnapshot, workDir, shard));
+                }
+                awaitWorkers(workers, workDir);
+            } finally {
+                // After a failure the other workers may still run; none may outlive the run or
+                // write to workDir while it is deleted
+                stopWorkers(workers);
+            }
+
+            mergeOutputs(workDir, order, outputFilePath);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private String partitionUsers(String usersFilePath, Path workDir, Path order) throws IOException {
+        List<BufferedWriter> shardWriters = new ArrayList<>();
+        long[] ordinal = { 0 };
+        String error;
+        try (ExternalDuplicateFinder duplicates = new ExternalDuplicateFinder(workDir, DUPLICATE_CHECK_BYTES);
+             OutputStream orderOut = new BufferedOutputStream(new FileOutputStream(order.toFile()))) {
+            for (int shard = 0; shard < shards; shard++) {
+                shardWriters.add(CompressedFiles.openWriter(usersShard(workDir, shard)));
+            }
+            BufferedReader reader = CompressedFiles.openReader(usersFilePath);
+            try {
+                error = MovieRecommendationSystem.readUsers(reader, null, new StringArena(),
+                        new MovieRecommendationSystem.UserSink() {
+                    @Override
+                    public void acceptId(String id) throws IOException {
+                        duplicates.add(id, ordinal[0]++);
+                    }
+
+                    @Override
+                    public void accept(User user) throws IOException {
+                        String id = user.getId();
+                        int shard = shardOf(id, shards);
+                        orderOut.write(shard);
+                        BufferedWriter writer = shardWriters.get(shard);
+                        writer.write(user.getName() + "," + id);
+                        writer.newLine();
+                        writer.write(String.join(",", user.getLikedMovieIds()));
+                        writer.newLine();
+                        // Each user is written out right away, so its strings aren't needed anymore
+                        user.arena().clear();
+                    }
+                });
+            } finally {
+                reader.close();
+            }
+
+            // Any repeated ID comes before the first other error, because reading stops there
+            String duplicate = duplicates.findFirstDuplicate();
+            if (duplicate != null) {
+                error = Validator.validateUserId(duplicate, Collections.singleton(duplicate));
+            }
+        } finally {
+            for (BufferedWriter writer : shardWriters) {
+                writer.close();
+            }
+        }
+        return error;
+    }
+
+    private Process startWorker(Path moviesSnapshot, Path workDir, int shard) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (GenreScan.VECTOR_AVAILABLE) {
+            command.add("--add-modules");
+            command.add("jdk.incubator.vector");
+        }
+        command.addAll(workerJvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(workerMain.getName());
+        command.add(moviesSnapshot.toString());
+        command.add(usersShard(workDir, shard).toString());
+        command.add(outputShard(workDir, shard).toString());
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(workDir.resolve("worker-" + shard + ".log").toFile());
+        return builder.start();
+    }
+
+    // Waits for every worker, in the order they exit, so the first failure is reported as soon as
+    // it happens rather than after the workers of the lower shards finish
+    private static void awaitWorkers(List<Process> workers, Path workDir) throws IOException {
+        boolean[] done = new boolean[workers.size()];
+        int remaining = workers.size();
+        while (remaining > 0) {
+            List<CompletableFuture<Process>> running = new ArrayList<>();
+            for (int shard = 0; shard < workers.size(); shard++) {
+                Process worker = workers.get(shard);
+                if (done[shard]) {
+                    continue;
+                }
+                if (worker.isAlive()) {
+                    running.add(worker.onExit());
+                    continue;
+                }
+                done[shard] = true;
+                remaining--;
+                int exitCode = worker.exitValue();
+                if (exitCode != 0) {
+                    Path log = workDir.resolve("worker-" + shard + ".log");
+                    String workerLog = Files.exists(log) ? Files.readString(log) : "";
+                    throw new IOException("Worker " + shard + " failed with exit code " + exitCode + ": "
+                            + workerLog.trim());
+                }
+            }
+            if (!running.isEmpty()) {
+                try {
+                    CompletableFuture.anyOf(running.toArray(new CompletableFuture[0])).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for workers", e);
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+    }
+
+    // Kills the workers that are still running and waits until they are gone
+    private static void stopWorkers(List<Process> workers) {
+        for (Process worker : workers) {
+            worker.destroyForcibly();
+        }
+        boolean interrupted = false;
+        for (Process worker : workers) {
+            while (true) {
+                try {
+                    worker.waitFor();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Each worker output holds its users' two-line records in input order, so walking the
+    // recorded shard sequence and taking the next record from that shard restores the original order.
+    private void mergeOutputs(Path workDir, Path order, String outputFilePath) throws IOException {
+        List<BufferedReader> readers = new ArrayList<>();
+        // Workers write UTF-8 (RecommendationWriter), so the merge reads and writes UTF-8 as well
+        BufferedWriter writer = openOutput(outputFilePath);
+        try (InputStream orderIn = new BufferedInputStream(new FileInputStream(order.toFile()))) {
+            for (int shard = 0; shard < shards; shard++) {
+                readers.add(Files.newBufferedReader(outputShard(workDir, shard), StandardCharsets.UTF_8));
+            }
+            int shard;
+            while ((shard = orderIn.read()) >= 0) {
+                BufferedReader reader = readers.get(shard);
+                for (int i = 0; i < 2; i++) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        throw new IOException("Output of worker " + shard + " ended early");
+                    }
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        } finally {
+            writer.close();
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    // Recommendation outputs are UTF-8, compressed when the name ends in ".gz"
+    private static BufferedWriter openOutput(String outputFilePath) throws IOException {
+        return CompressedFiles.openWriter(Path.of(outputFilePath));
+    }
+
+    private static Path usersShard(Path workDir, int shard) {
+        return workDir.resolve("users-" + shard + ".txt");
+    }
+
+    private static Path outputShard(Path workDir, int shard) {
+        return workDir.resolve("recommendations-" + shard + ".txt");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
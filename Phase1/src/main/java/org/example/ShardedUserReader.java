@@ -0,0 +1,314 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Parses the two-line user records of a users file in byte-range shards on a ForkJoin pool.
+// Every shard boundary is moved to the start of a record (an even line index), so shards can be
+// parsed and validated independently; the merge then replays them in file order and performs the
+// cross-shard duplicate check that a single sequential pass would have done.
+// Lines end with '\n' (an optional '\r' before it is dropped); bare '\r' line endings are not supported.
+public class ShardedUserReader {
+    static final long DEFAULT_SHARD_BYTES = 32L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final long shardBytes;
+    private final Charset charset;
+
+    public ShardedUserReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SHARD_BYTES);
+    }
+
+    public ShardedUserReader(ForkJoinPool pool, long shardBytes) {
+        if (shardBytes <= 0) {
+            throw new IllegalArgumentException("shardBytes must be positive: " + shardBytes);
+        }
+        this.pool = pool;
+        this.shardBytes = shardBytes;
+        // Same charset CompressedFiles.openReader uses in loadUsers
+        this.charset = StandardCharsets.UTF_8;
+    }
+
+    public static class Result {
+        private final List<User> users;
+        private final String firstError;
+
+        Result(List<User> users, String firstError) {
+            this.users = users;
+            this.firstError = firstError;
+        }
+
+        public List<User> getUsers() {
+            return users;
+        }
+
+        public String getFirstError() {
+            return firstError;
+        }
+    }
+
+    // Outcome of parsing one byte range. Users are only those whose liked line was read;
+    // pending is a validated header whose liked line lies beyond the end of the range.
+    private static class Shard {
+        final List<User> users = new ArrayList<>();
+        User pending;
+        String error;
+    }
+
+    public Result read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = recordBoundaries(channel, size);
+            int shardCount = bounds.length - 1;
+
+            List<ForkJoinTask<Shard>> tasks = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(pool.submit(() -> parse(channel, start, end, null)));
+            }
+
+            List<User> users = new ArrayList<>();
+            Set<String> userIdSet = new HashSet<>();
+            for (int i = 0; i < shardCount; i++) {
+                Shard shard = join(tasks.get(i));
+                boolean last = i + 1 == shardCount;
+                String error = merge(shard, users, userIdSet, last);
+                if (error != null) {
+                    cancel(tasks, i + 1);
+                    return new Result(users, error);
+                }
+                if (shard.pending != null && !last) {
+                    // A malformed line shifted the record pairing; the remaining shards were parsed
+                    // on the wrong line parity, so finish the file sequentially from here.
+                    cancel(tasks, i + 1);
+                    Shard rest = parse(channel, bounds[i + 1], size, shard.pending);
+                    return new Result(users, merge(rest, users, userIdSet, true));
+                }
+            }
+            return new Result(users, null);
+        }
+    }
+
+    // Replays a shard's users in file order against the global ID set and appends them to users.
+    // A pending header only counts at the end of the file; elsewhere it is carried into the next range.
+    // Returns the first error in file order, or null.
+    private static String merge(Shard shard, List<User> users, Set<String> userIdSet, boolean last) {
+        for (User user : shard.users) {
+            // Decoded once for both the check and the set
+            String id = user.getId();
+            String idError = Validator.validateUserId(id, userIdSet);
+            if (idError != null) {
+                return idError;
+            }
+            userIdSet.add(id);
+            users.add(user);
+        }
+        if (last && shard.error == null && shard.pending != null) {
+            String id = shard.pending.getId();
+            String idError = Validator.validateUserId(id, userIdSet);
+            if (idError != null) {
+                return idError;
+            }
+            userIdSet.add(id);
+        }
+        return shard.error;
+    }
+
+    private static <T> void cancel(List<ForkJoinTask<T>> tasks, int from) {
+        for (int i = from; i < tasks.size(); i++) {
+            tasks.get(i).cancel(false);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading users", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // Splits [0, size) into byte ranges that each start at the beginning of a record.
+    private long[] recordBoundaries(FileChannel channel, long size) throws IOException {
+        int shardCount = (int) Math.max(1, Math.min(size / shardBytes, pool.getParallelism() * 4L));
+        long[] bounds = new long[shardCount + 1];
+        bounds[shardCount] = size;
+        for (int i = 1; i < shardCount; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, size / shardCount * i, size));
+        }
+        if (shardCount == 1) {
+            return bounds;
+        }
+
+        // Count lines per range in parallel, then push every boundary that lands on an odd line
+        // index (a liked-IDs line) forward by one line.
+        List<ForkJoinTask<Long>> counts = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            counts.add(pool.submit(() -> countLines(channel, start, end)));
+        }
+        long lineIndex = 0;
+        for (int i = 1; i < shardCount; i++) {
+            lineIndex += join(counts.get(i - 1));
+            if (lineIndex % 2 != 0) {
+                bounds[i] = nextLineStart(channel, bounds[i] + 1, size);
+            }
+        }
+        // Moving a boundary forward may overtake the next one; keep the ranges ordered.
+        for (int i = 1; i < shardCount; i++) {
+            bounds[i] = Math.min(Math.max(bounds[i], bounds[i - 1]), size);
+        }
+        return bounds;
+    }
+
+    // Returns the offset of the first line starting at or after position.
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long pos = position - 1;
+        while (pos < size) {
+            buffer.clear();
+            int n = channel.read(buffer, pos);
+            if (n <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static long countLines(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long lines = 0;
+        long pos = start;
+        while (pos < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, end - pos));
+            int n = channel.read(buffer, pos);
+            if (n <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+            pos += n;
+        }
+        return lines;
+    }
+
+    // Same record handling as MovieRecommendationSystem.loadUsers, restricted to [start, end).
+    // When pending is set, the first line of the range is that user's liked-IDs line.
+    private Shard parse(FileChannel channel, long start, long end, User pending) throws IOException {
+        Shard shard = new Shard();
+        Set<String> userIdSet = new HashSet<>();
+        // One arena per range, so the parsing threads never share one
+        StringArena arena = new StringArena();
+        User current = pending;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] lineBytes = new byte[256];
+        int lineLength = 0;
+        long pos = start;
+        boolean done = false;
+        while (!done) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, end - pos));
+            int n = pos < end ? channel.read(buffer, pos) : -1;
+            if (n <= 0) {
+                done = true;
+                if (lineLength == 0) {
+                    break;
+                }
+            }
+            byte[] bytes = buffer.array();
+            int count = Math.max(n, 0);
+            for (int i = 0; i <= count; i++) {
+                boolean lineEnd = i < count ? bytes[i] == '\n' : done;
+                if (!lineEnd) {
+                    if (i < count) {
+                        if (lineLength == lineBytes.length) {
+                            lineBytes = Arrays.copyOf(lineBytes, lineLength * 2);
+                        }
+                        lineBytes[lineLength++] = bytes[i];
+                    }
+                    continue;
+                }
+                int length = lineLength > 0 && lineBytes[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                String line = new String(lineBytes, 0, length, charset);
+                lineLength = 0;
+
+                if (current != null) {
+                    String[] likedMovieIds = line.split(",");
+                    if (!current.arena().hasRoomFor(likedMovieIds.length, line.length())) {
+                        // Continues in a new arena, which the user's name and ID move to as well
+                        arena = new StringArena();
+                        current = new User(arena, current.getName(), current.getId());
+                    }
+                    for (String movieId : likedMovieIds) {
+                        current.addLikedMovieId(movieId.trim());
+                    }
+                    shard.users.add(current);
+                    current = null;
+                    continue;
+                }
+
+                String[] parts = line.split(",");
+                if (parts.length != 2) {
+                    continue; // Skip invalid lines
+                }
+                String name = parts[0];
+                String id = parts[1].trim();
+
+                String nameError = Validator.validateUserName(name);
+                if (nameError != null) {
+                    shard.error = nameError;
+                    return shard;
+                }
+                String idError = Validator.validateUserId(id, userIdSet);
+                if (idError != null) {
+                    shard.error = idError;
+                    return shard;
+                }
+                userIdSet.add(id);
+                if (!arena.hasRoomFor(2, name.length() + id.length())) {
+                    arena = new StringArena();
+                }
+                current = new User(arena, name, id);
+            }
+            if (n > 0) {
+                pos += n;
+            }
+        }
+        shard.pending = current;
+        return shard;
+    }
+}
@@ -0,0 +1,281 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Append-only store that packs strings as UTF-8 into a few large byte chunks. A string is referred
+// to by an int handle (chunk number and offset) instead of a String object, so a loaded catalog
+// keeps one byte per ASCII character and no per-string headers. intern() also deduplicates,
+// for values that repeat a lot such as genres, names and liked movie IDs.
+// Adding is synchronized; handles must reach other threads through a safe publication (such as
+// a catalog snapshot) before they read them.
+// Handles address about 4 GB, so loaders that keep adding to one arena check hasRoomFor per record
+// and continue in a new arena once it fails.
+public final class StringArena {
+    static final int MAX_CHUNK_BYTES = 1 << 20;
+    private static final int OFFSET_BITS = 20;
+    // One less than the handle bits allow, so that no handle is -1
+    static final int MAX_CHUNKS = (1 << (32 - OFFSET_BITS)) - 1;
+    // Handle of null, which add and intern accept like any other string
+    public static final int NULL = -1;
+    private static final int MIN_CHUNK_BYTES = 16;
+    private static final int[] NO_SLOTS = new int[0];
+    // Length prefix and UTF-8 of "null"
+    private static final byte[] NULL_RECORD = { 4, 'n', 'u', 'l', 'l' };
+
+    // Each string is a varint byte length followed by its UTF-8 bytes; never split across chunks
+    private volatile byte[][] chunks = new byte[4][];
+    private final int maxChunks;
+    private int chunkCount = 0;
+    private int used = 0;
+    private long totalBytes = 0;
+    // Open addressing over interned handles plus one; 0 is an empty slot
+    private int[] internSlots = NO_SLOTS;
+    private int[] internHashes = NO_SLOTS;
+    private int internCount = 0;
+
+    public StringArena() {
+        this(MIN_CHUNK_BYTES);
+    }
+
+    // For arenas with a known, small content, so they don't allocate more than needed
+    StringArena(int initialBytes) {
+        this(initialBytes, MAX_CHUNKS);
+    }
+
+    // Tests use a small maxChunks to reach the limit
+    StringArena(int initialBytes, int maxChunks) {
+        this.maxChunks = Math.min(maxChunks, MAX_CHUNKS);
+        addChunk(Math.max(MIN_CHUNK_BYTES, initialBytes));
+    }
+
+    public synchronized int add(String s) {
+        return s == null ? NULL : append(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Handle of an equal string added through intern before, or of a newly added copy
+    public synchronized int intern(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int hash = s.hashCode();
+        if (internCount * 2 >= internSlots.length) {
+            growInternTable();
+        }
+        int mask = internSlots.length - 1;
+        int slot = hash & mask;
+        while (internSlots[slot] != 0) {
+            if (internHashes[slot] == hash && bytesEqual(internSlots[slot] - 1, bytes)) {
+                return internSlots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int handle = append(bytes);
+        internSlots[slot] = handle + 1;
+        internHashes[slot] = hash;
+        internCount++;
+        return handle;
+    }
+
+    public String get(int handle) {
+        if (handle == NULL) {
+            return null;
+        }
+        byte[] chunk = chunk(handle);
+        int start = start(handle);
+        return new String(chunk, start, length(handle), StandardCharsets.UTF_8);
+    }
+
+    // Forgets every string, keeping the last chunk for reuse. Handles given out before become
+    // invalid, so nothing may still refer to them.
+    public synchronized void clear() {
+        byte[] keep = chunks[chunkCount - 1];
+        Arrays.fill(chunks, null);
+        chunks[0] = keep;
+        chunkCount = 1;
+        used = 0;
+        totalBytes = 0;
+        internSlots = NO_SLOTS;
+        internHashes = NO_SLOTS;
+        internCount = 0;
+    }
+
+    // Whether adding this many strings with this many chars in total surely succeeds
+    public synchronized boolean hasRoomFor(long strings, long chars) {
+        // At most 3 UTF-8 bytes per char and 5 per length prefix
+        long bytes = 3 * chars + 5 * strings;
+        int last = chunks[chunkCount - 1].length;
+        if (last - used >= bytes) {
+            return true;
+        }
+        // Chunks at least double until they reach MAX_CHUNK_BYTES. After that, a chunk's unused
+        // tail is shorter than the string that didn't fit in it, so the new chunks take at most
+        // twice the bytes added, plus one chunk that isn't full yet.
+        long chunksNeeded = 2 * bytes / MAX_CHUNK_BYTES + 2;
+        for (int size = last; size < MAX_CHUNK_BYTES; size *= 2) {
+            chunksNeeded++;
+        }
+        return maxChunks - chunkCount >= chunksNeeded;
+    }
+
+    // Chars of a string about to be added, for sizing an arena; 0 for null
+    static int lengthOf(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    // Bytes of string data stored so far, including the length prefixes
+    public synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    // Raw access for writers that copy the UTF-8 form out without building a String. NULL reads
+    // as "null", which is what the writers printed for a null name or title before the arenas.
+    byte[] chunk(int handle) {
+        return handle == NULL ? NULL_RECORD : chunks[handle >>> OFFSET_BITS];
+    }
+
+    int start(int handle) {
+        if (handle == NULL) {
+            return 1;
+        }
+        byte[] chunk = chunk(handle);
+        int offset = handle & (MAX_CHUNK_BYTES - 1);
+        while (chunk[offset] < 0) {
+            offset++;
+        }
+        return offset + 1;
+    }
+
+    int length(int handle) {
+        if (handle == NULL) {
+            return NULL_RECORD.length - 1;
+        }
+        byte[] chunk = chunk(handle);
+        int offset = handle & (MAX_CHUNK_BYTES - 1);
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk[offset++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    // Copy of the UTF-8 bytes, for indexes that keep a string beyond the arena
+    byte[] bytes(int handle) {
+        int start = start(handle);
+        return Arrays.copyOfRange(chunk(handle), start, start + length(handle));
+    }
+
+    // Same value as get(handle).hashCode(), without decoding the String
+    int hashCode(int handle) {
+        return stringHash(chunk(handle), start(handle), length(handle));
+    }
+
+    // String.hashCode() of well-formed UTF-8, such as the arenas and String.getBytes produce
+    static int stringHash(byte[] utf8, int from, int length) {
+        int hash = 0;
+        for (int i = from, end = from + length; i < end; i += sequenceLength(utf8[i])) {
+            int codePoint = codePointAt(utf8, i);
+            if (Character.isBmpCodePoint(codePoint)) {
+                hash = 31 * hash + codePoint;
+            } else {
+                hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+            }
+        }
+        return hash;
+    }
+
+    // Code point of the well-formed UTF-8 sequence starting at i
+    static int codePointAt(byte[] utf8, int i) {
+        int lead = utf8[i];
+        if (lead >= 0) {
+            return lead;
+        } else if ((lead & 0xE0) == 0xC0) {
+            return ((lead & 0x1F) << 6) | (utf8[i + 1] & 0x3F);
+        } else if ((lead & 0xF0) == 0xE0) {
+            return ((lead & 0x0F) << 12) | ((utf8[i + 1] & 0x3F) << 6) | (utf8[i + 2] & 0x3F);
+        }
+        return ((lead & 0x07) << 18) | ((utf8[i + 1] & 0x3F) << 12) | ((utf8[i + 2] & 0x3F) << 6)
+                | (utf8[i + 3] & 0x3F);
+    }
+
+    // Bytes in the UTF-8 sequence that starts with this lead byte
+    static int sequenceLength(byte lead) {
+        if (lead >= 0) {
+            return 1;
+        }
+        return (lead & 0xE0) == 0xC0 ? 2 : (lead & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    private boolean bytesEqual(int handle, byte[] bytes) {
+        int start = start(handle);
+        return length(handle) == bytes.length
+                && Arrays.equals(chunk(handle), start, start + bytes.length, bytes, 0, bytes.length);
+    }
+
+    private int append(byte[] bytes) {
+        int needed = varintSize(bytes.length) + bytes.length;
+        byte[] chunk = chunks[chunkCount - 1];
+        if (chunk.length - used < needed) {
+            // Chunks double up to MAX_CHUNK_BYTES; a longer string gets a chunk of its own
+            addChunk(Math.max(needed, Math.min(MAX_CHUNK_BYTES, chunk.length * 2)));
+            chunk = chunks[chunkCount - 1];
+        }
+        int handle = ((chunkCount - 1) << OFFSET_BITS) | used;
+        for (int length = bytes.length; ; length >>>= 7) {
+            if (length < 0x80) {
+                chunk[used++] = (byte) length;
+                break;
+            }
+            chunk[used++] = (byte) (0x80 | (length & 0x7F));
+        }
+        System.arraycopy(bytes, 0, chunk, used, bytes.length);
+        used += bytes.length;
+        totalBytes += needed;
+        return handle;
+    }
+
+    private void addChunk(int bytes) {
+        if (chunkCount == maxChunks) {
+            throw new IllegalStateException("String arena is full");
+        }
+        byte[][] current = chunks;
+        if (chunkCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[chunkCount++] = new byte[bytes];
+        used = 0;
+        // Publish the new table after the chunk is in it
+        chunks = current;
+    }
+
+    private void growInternTable() {
+        int capacity = Math.max(16, internSlots.length * 2);
+        int[] slots = new int[capacity];
+        int[] hashes = new int[capacity];
+        for (int i = 0; i < internSlots.length; i++) {
+            if (internSlots[i] != 0) {
+                int slot = internHashes[i] & (capacity - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                slots[slot] = internSlots[i];
+                hashes[slot] = internHashes[i];
+            }
+        }
+        internSlots = slots;
+        internHashes = hashes;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -1,35 +1,144 @@
 package org.example;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+
+// A user's strings live in a StringArena; the loaders share one arena per file and intern the
+// names and liked movie IDs, which repeat across users. The liked IDs are a growable array of
+// handles, seen through a modifiable List<String> view. Null strings are kept as null.
+// A user is frozen once a CatalogSnapshot holds it, since the snapshot resolved its likes already;
+// changing its liked IDs after that throws IllegalStateException.
 public class User {
-    private String name;
-    private String id;
-    private List<String> likedMovieIds;
+    private static final int[] NO_MOVIES = new int[0];
+
+    private final StringArena arena;
+    private final int name;
+    private final int id;
+    private int[] likedMovieIds = NO_MOVIES;
+    private int likedCount = 0;
+    private final List<String> likedMovieIdList = new LikedMovieIds();
+    private boolean frozen = false;
 
     public User(String name, String id) {
-        this.name = name;
-        this.id = id;
-        this.likedMovieIds = new ArrayList<>();
+        this(new StringArena(StringArena.lengthOf(name) + StringArena.lengthOf(id) + 2), name, id);
+    }
+
+    User(StringArena arena, String name, String id) {
+        this.arena = arena;
+        this.name = arena.intern(name);
+        this.id = arena.add(id);
     }
 
     public String getName() {
-        return name;
+        return arena.get(name);
     }
 
     public String getId() {
-        return id;
+        return arena.get(id);
     }
 
+    // The same live list on every call; changing it changes the user
     public List<String> getLikedMovieIds() {
-        return likedMovieIds;
+        return likedMovieIdList;
     }
 
     public void addLikedMovieId(String movieId) {
-        likedMovieIds.add(movieId);
+        checkNotFrozen();
+        insertLiked(likedCount, arena.intern(movieId));
     }
 
+    // Copies the IDs in. Unlike before the arenas, the user doesn't keep the list passed in, so
+    // changing that list afterwards doesn't change the user; change getLikedMovieIds() instead.
     public void setLikedMovieIds(List<String> likedMovieIds) {
-        this.likedMovieIds = likedMovieIds;
+        checkNotFrozen();
+        if (likedMovieIds == likedMovieIdList) {
+            return;
+        }
+        likedCount = 0;
+        this.likedMovieIds = NO_MOVIES;
+        for (String movieId : likedMovieIds) {
+            addLikedMovieId(movieId);
+        }
+    }
+
+    // Called by CatalogSnapshot before it resolves the likes
+    void freeze() {
+        frozen = true;
+    }
+
+    StringArena arena() {
+        return arena;
+    }
+
+    int nameHandle() {
+        return name;
+    }
+
+    int idHandle() {
+        return id;
+    }
+
+    // The liked movie IDs as handles into arena(), for loops that shouldn't decode them
+    int likedCount() {
+        return likedCount;
+    }
+
+    int likedMovieIdHandle(int index) {
+        return likedMovieIds[Objects.checkIndex(index, likedCount)];
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("User " + getId() + " is in a catalog snapshot and can't be changed");
+        }
+    }
+
+    private void insertLiked(int index, int handle) {
+        if (likedCount == likedMovieIds.length) {
+            likedMovieIds = Arrays.copyOf(likedMovieIds, Math.max(4, likedCount * 2));
+        }
+        System.arraycopy(likedMovieIds, index, likedMovieIds, index + 1, likedCount - index);
+        likedMovieIds[index] = handle;
+        likedCount++;
+    }
+
+    private final class LikedMovieIds extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            return arena.get(likedMovieIds[Objects.checkIndex(index, likedCount)]);
+        }
+
+        @Override
+        public int size() {
+            return likedCount;
+        }
+
+        @Override
+        public String set(int index, String movieId) {
+            checkNotFrozen();
+            String previous = get(index);
+            likedMovieIds[index] = arena.intern(movieId);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, String movieId) {
+            checkNotFrozen();
+            Objects.checkIndex(index, likedCount + 1);
+            insertLiked(index, arena.intern(movieId));
+            modCount++;
+        }
+
+        @Override
+        public String remove(int index) {
+            checkNotFrozen();
+            String previous = get(index);
+            System.arraycopy(likedMovieIds, index + 1, likedMovieIds, index, likedCount - index - 1);
+            likedCount--;
+            modCount++;
+            return previous;
+        }
     }
-}
\ No newline at end of file
+}
@@ -92,6 +92,25 @@ public class Validator {
         return null; // No error
     }
 
+    // Same checks as above against the IDs loaded so far; MovieIdList indexes the IDs and their
+    // numbers, so both uniqueness checks are lookups instead of a scan of every earlier ID. As with
+    // the list, null existingIds skips them.
+    static String validateMovieIdIndexed(String id, String title, MovieIdList existingIds) {
+        if (id != null && existingIds != null && existingIds.contains(id)) {
+            return "ERROR: Movie Id numbers " + id + " aren't unique";
+        }
+
+        String error = validateMovieId(id, title, null);
+        if (error != null) {
+            return error;
+        }
+
+        if (existingIds != null && existingIds.containsNumbers(MovieIdList.numbersOf(id))) {
+            return "ERROR: Movie Id numbers " + id + " aren't unique";
+        }
+        return null; // No error
+    }
+
 
     public static String validateUserName(String name) {
         if (name == null || name.isEmpty() || name.startsWith(" ")) {
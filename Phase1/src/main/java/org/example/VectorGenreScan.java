@@ -0,0 +1,50 @@
+package org.example;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API kernel behind GenreScan: tests a full vector of movies per step against the genre mask.
+// Only loaded when the jdk.incubator.vector module is present.
+final class VectorGenreScan {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final LongVector ZERO = LongVector.zero(SPECIES);
+    // 1 << lane in every lane, to turn a lane mask into bits
+    private static final LongVector LANE_BITS;
+
+    static {
+        long[] laneBits = new long[SPECIES.length()];
+        for (int lane = 0; lane < laneBits.length; lane++) {
+            laneBits[lane] = 1L << lane;
+        }
+        LANE_BITS = LongVector.fromArray(SPECIES, laneBits, 0);
+    }
+
+    private VectorGenreScan() {
+    }
+
+    static void scan(GenreColumns columns, long[] genreMask, long[] matches) {
+        int movieCount = columns.movieCount();
+        int lanes = SPECIES.length();
+        // The lane count divides 64, so the hits of one step always land in a single bitset word
+        int upperBound = SPECIES.loopBound(movieCount);
+        for (int movie = 0; movie < upperBound; movie += lanes) {
+            // Hits are merged as plain bits, by an OR reduction of the lane bits. A mask carried
+            // from one word to the next, or VectorMask.toLong, which JDK 17 doesn't intrinsify,
+            // would allocate on every step.
+            long hits = 0;
+            for (int word = 0; word < columns.words(); word++) {
+                long wordMask = genreMask[word];
+                if (wordMask == 0) {
+                    continue;
+                }
+                LongVector genres = LongVector.fromArray(SPECIES, columns.column(word), movie);
+                VectorMask<Long> shared = genres.and(wordMask).compare(VectorOperators.NE, 0);
+                hits |= ZERO.blend(LANE_BITS, shared).reduceLanes(VectorOperators.OR);
+            }
+            matches[movie >>> 6] |= hits << (movie & 63);
+        }
+        GenreScan.scanScalar(columns, genreMask, matches, upperBound);
+    }
+}
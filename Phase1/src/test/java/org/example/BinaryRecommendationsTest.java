@@ -0,0 +1,121 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryRecommendationsTest {
+    @TempDir
+    Path tempDir;
+
+    private MovieRecommendationSystem loadRandomCatalog(int movieCount, int userCount) throws IOException {
+        Random random = new Random(5);
+        List<String> movies = new ArrayList<>();
+        for (int i = 0; i < movieCount; i++) {
+            movies.add("The Long Movie Title Number " + (i % (movieCount - 10)) + ",TLMTN" + String.format("%03d", i));
+            movies.add("Genre" + random.nextInt(40) + ",Genre" + random.nextInt(40));
+        }
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            users.add((i % 7 == 0 ? "Zoe Number" : "User Number") + "," + String.format("%09d", i));
+            users.add("TLMTN" + String.format("%03d", random.nextInt(movieCount))
+                    + ",TLMTN" + String.format("%03d", random.nextInt(movieCount)));
+        }
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.write(moviesFile, movies);
+        Files.write(usersFile, users);
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile.toString());
+        system.loadUsers(usersFile.toString());
+        return system;
+    }
+
+    private static String textLines(BinaryRecommendationReader.Record record) {
+        String titles = record.getTitles().isEmpty() ? "No recommendations" : String.join(",", record.getTitles());
+        return record.getUserName() + "," + record.getUserId() + System.lineSeparator() + titles
+                + System.lineSeparator();
+    }
+
+    @Test
+    public void testBinaryOutputMatchesTextOutput() throws IOException {
+        MovieRecommendationSystem system = loadRandomCatalog(400, 2000);
+        Path text = tempDir.resolve("recommendations.txt");
+        Path binary = tempDir.resolve("recommendations.bin");
+        system.generateRecommendations(text.toString());
+        system.generateBinaryRecommendations(binary.toString());
+
+        StringBuilder rebuilt = new StringBuilder();
+        try (BinaryRecommendationReader reader = BinaryRecommendationReader.open(binary)) {
+            assertNull(reader.getError());
+            assertEquals(400, reader.getTitles().size());
+            assertEquals(2000, reader.getUserCount());
+            BinaryRecommendationReader.Record record;
+            while ((record = reader.next()) != null) {
+                rebuilt.append(textLines(record));
+            }
+        }
+
+        assertEquals(Files.readString(text), rebuilt.toString());
+        assertTrue(Files.size(binary) * 10 < Files.size(text),
+                Files.size(binary) + " binary bytes vs " + Files.size(text) + " text bytes");
+    }
+
+    @Test
+    public void testRandomAccessByPositionAndId() throws IOException {
+        MovieRecommendationSystem system = loadRandomCatalog(100, 500);
+        Path binary = tempDir.resolve("recommendations.bin");
+        system.generateBinaryRecommendations(binary.toString());
+        List<User> users = system.snapshot().getUsers();
+
+        try (BinaryRecommendationReader reader = BinaryRecommendationReader.open(binary)) {
+            for (int i : new int[] { 0, 1, 250, 499 }) {
+                BinaryRecommendationReader.Record record = reader.read(i);
+                assertEquals(users.get(i).getId(), record.getUserId());
+                assertEquals(List.copyOf(system.snapshot().recommend(i)), record.getTitles());
+            }
+
+            for (int i = 0; i < users.size(); i += 37) {
+                BinaryRecommendationReader.Record found = reader.find(users.get(i).getId());
+                assertEquals(users.get(i).getName(), found.getUserName());
+                assertEquals(List.copyOf(system.snapshot().recommend(i)), found.getTitles());
+            }
+
+            assertNull(reader.find("999999999"));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.read(500));
+        }
+    }
+
+    @Test
+    public void testValidationErrorIsStoredInTheHeader() throws IOException {
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Files.write(moviesFile, List.of("the matrix,TM123", "Action"));
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile.toString());
+        Path binary = tempDir.resolve("recommendations.bin");
+        system.generateBinaryRecommendations(binary.toString());
+
+        try (BinaryRecommendationReader reader = BinaryRecommendationReader.open(binary)) {
+            assertEquals(system.snapshot().getFirstError(), reader.getError());
+            assertEquals(0, reader.getUserCount());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testTextFileIsRejected() throws IOException {
+        Path text = tempDir.resolve("recommendations.txt");
+        Files.writeString(text, "User Number,000000001" + System.lineSeparator() + "No recommendations");
+
+        assertThrows(IOException.class, () -> BinaryRecommendationReader.open(text));
+    }
+}
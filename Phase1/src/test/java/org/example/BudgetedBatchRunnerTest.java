@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BudgetedBatchRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    private List<String> userLines(int count) {
+        String[] liked = { "TM123", "I456", "T789", "TM123,T789" };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("User Number," + String.format("%09d", (i * 7919) % 1000003));
+            lines.add(liked[i % liked.length]);
+        }
+        return lines;
+    }
+
+    // Runs the in-memory pipeline and the budgeted one on the same input and compares the outputs
+    private void assertSameOutput(List<String> userLines, long budget) throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", userLines);
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        system.generateRecommendations(expected.toString());
+
+        MovieRecommendationSystem budgeted = new MovieRecommendationSystem();
+        budgeted.loadMovies(movies.toString());
+        Path actual = tempDir.resolve("actual.txt");
+        budgeted.generateRecommendationsWithBudget(users.toString(), actual.toString(), budget);
+
+        assertEquals(Files.readAllLines(expected), Files.readAllLines(actual));
+        // Only the inputs and the two outputs are left; spill files are cleaned up
+        assertEquals(4, tempDir.toFile().list().length);
+    }
+
+    @Test
+    public void testSingleBatchMatchesInMemoryRun() throws IOException {
+        assertSameOutput(userLines(100), 64L * 1024 * 1024);
+    }
+
+    @Test
+    public void testSpilledBatchesKeepUserOrder() throws IOException {
+        assertSameOutput(userLines(3000), 8 * 1024);
+    }
+
+    @Test
+    public void testDuplicateAcrossSpilledRuns() throws IOException {
+        List<String> lines = userLines(3000);
+        lines.set(2 * 2500, "Late Duplicate," + String.format("%09d", 7919));
+        lines.set(2 * 2900, "Later Duplicate," + String.format("%09d", 0));
+        assertSameOutput(lines, 8 * 1024);
+    }
+
+    @Test
+    public void testValidationErrorBeforeDuplicate() throws IOException {
+        List<String> lines = userLines(3000);
+        lines.set(2 * 1000, "B4d Name," + String.format("%09d", 1));
+        lines.set(2 * 2000, "Late Duplicate," + String.format("%09d", 7919));
+        assertSameOutput(lines, 8 * 1024);
+    }
+
+    @Test
+    public void testCompressedOutputOfSpilledBatches() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", userLines(3000));
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        system.generateRecommendations(expected.toString());
+
+        Path actual = tempDir.resolve("actual.txt.gz");
+        system.generateRecommendationsWithBudget(users.toString(), actual.toString(), 8 * 1024);
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = CompressedFiles.openReader(actual.toString())) {
+            reader.lines().forEach(lines::add);
+        }
+        assertEquals(Files.readAllLines(expected), lines);
+    }
+
+    @Test
+    public void testWriterBuffersComeOutOfTheBudget() {
+        long budget = 64 * 1024;
+        int bufferBytes = BudgetedBatchRunner.writerBufferBytes(budget);
+        assertEquals(2048, bufferBytes);
+        assertTrue((long) bufferBytes * RecommendationWriter.BUFFER_COUNT <= budget / 8);
+        assertEquals(RecommendationWriter.DEFAULT_BUFFER_BYTES, BudgetedBatchRunner.writerBufferBytes(1L << 40));
+        assertEquals(RecommendationWriter.MIN_BUFFER_BYTES, BudgetedBatchRunner.writerBufferBytes(1));
+    }
+
+    @Test
+    public void testBudgetMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BudgetedBatchRunner(new MovieRecommendationSystem(), 0));
+    }
+}
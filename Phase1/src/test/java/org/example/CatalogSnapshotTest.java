@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    private Path usersFile(String filename, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("User Number," + String.format("%09d", i));
+            lines.add("TM123");
+        }
+        return TestFiles.createTempFile(tempDir, filename, lines);
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterLoads() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(TestFiles.moviesFile(tempDir).toString());
+        CatalogSnapshot before = system.snapshot();
+
+        system.loadUsers(usersFile("users.txt", 3).toString());
+
+        assertTrue(before.getUsers().isEmpty());
+        assertEquals(3, system.snapshot().getUsers().size());
+        assertSame(before.getMovies(), system.snapshot().getMovies());
+        assertThrows(UnsupportedOperationException.class, () -> system.snapshot().getUsers().clear());
+    }
+
+    @Test
+    public void testUsersInASnapshotCannotChange() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(TestFiles.moviesFile(tempDir).toString());
+        system.loadUsers(usersFile("users.txt", 1).toString());
+        CatalogSnapshot catalog = system.snapshot();
+        User user = catalog.getUsers().get(0);
+
+        assertThrows(IllegalStateException.class, () -> user.addLikedMovieId("I456"));
+        assertThrows(IllegalStateException.class, () -> user.setLikedMovieIds(List.of("I456")));
+        assertThrows(IllegalStateException.class, () -> user.getLikedMovieIds().set(0, "I456"));
+        assertThrows(IllegalStateException.class, () -> user.getLikedMovieIds().clear());
+        assertEquals(List.of("TM123"), user.getLikedMovieIds());
+        assertEquals(Set.of("Inception"), catalog.recommend(user));
+    }
+
+    @Test
+    public void testRecommendUsesMovieIndex() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(TestFiles.moviesFile(tempDir).toString());
+        CatalogSnapshot catalog = system.snapshot();
+
+        User user = new User("John Doe", "123456789");
+        user.addLikedMovieId("TM123");
+        user.addLikedMovieId("UNKNOWN");
+
+        assertEquals("Inception", catalog.getMovie("I456").getTitle());
+        assertNull(catalog.getMovie("UNKNOWN"));
+        assertEquals(Set.of("Inception"), catalog.recommend(user));
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshotsDuringReload() throws Exception {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(TestFiles.moviesFile(tempDir).toString());
+        Path users = usersFile("users.txt", 200);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        CatalogSnapshot catalog = system.snapshot();
+                        // Every load appends exactly 200 users, so a torn view would show up here
+                        assertEquals(0, catalog.getUsers().size() % 200);
+                        for (User user : catalog.getUsers()) {
+                            assertEquals(Set.of("Inception"), catalog.recommend(user));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            system.loadUsers(users.toString());
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(2000, system.snapshot().getUsers().size());
+    }
+}
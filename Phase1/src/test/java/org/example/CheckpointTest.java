@@ -0,0 +1,97 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+    @TempDir
+    Path tempDir;
+
+    private MovieRecommendationSystem loadedSystem(int userCount) throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        String[] liked = { "TM123", "I456", "T789" };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            lines.add("User Number," + String.format("%09d", i));
+            lines.add(liked[i % liked.length]);
+        }
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", lines);
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        return system;
+    }
+
+    @Test
+    public void testCheckpointRoundTrip() throws IOException {
+        Path file = tempDir.resolve("run.checkpoint");
+        new Checkpoint(41, 1234L, "12345678X").write(file);
+
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertEquals(41, checkpoint.getLastUserIndex());
+        assertEquals(1234L, checkpoint.getOffset());
+        assertEquals("12345678X", checkpoint.getLastUserId());
+        assertNull(Checkpoint.read(tempDir.resolve("missing.checkpoint")));
+    }
+
+    @Test
+    public void testCompletedRunRemovesCheckpoint() throws IOException {
+        MovieRecommendationSystem system = loadedSystem(1000);
+        Path checkpoint = tempDir.resolve("run.checkpoint");
+        system.enableCheckpoints(checkpoint.toString(), 0);
+
+        system.generateRecommendations(tempDir.resolve("output.txt").toString());
+
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    public void testResumeContinuesAfterCheckpoint() throws IOException {
+        MovieRecommendationSystem system = loadedSystem(1000);
+        Path expected = tempDir.resolve("expected.txt");
+        system.generateRecommendations(expected.toString());
+        List<String> expectedLines = Files.readAllLines(expected);
+
+        // Simulate a crash after user 599: the output holds those users plus a torn partial record
+        long offset = 0;
+        for (String line : expectedLines.subList(0, 1200)) {
+            offset += (line + System.lineSeparator()).getBytes().length;
+        }
+        Path output = tempDir.resolve("output.txt");
+        Files.copy(expected, output);
+        try (RandomAccessFile file = new RandomAccessFile(output.toFile(), "rw")) {
+            file.setLength(offset);
+            file.seek(offset);
+            file.write("User Number,0000".getBytes(StandardCharsets.US_ASCII));
+        }
+        Path checkpoint = tempDir.resolve("run.checkpoint");
+        new Checkpoint(599, offset, String.format("%09d", 599)).write(checkpoint);
+
+        system.enableCheckpoints(checkpoint.toString(), 0);
+        system.resumeRecommendations(output.toString());
+
+        assertEquals(expectedLines, Files.readAllLines(output));
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    public void testResumeRejectsCheckpointOfOtherUsers() throws IOException {
+        MovieRecommendationSystem system = loadedSystem(10);
+        Path checkpoint = tempDir.resolve("run.checkpoint");
+        new Checkpoint(5, 0, "999999999").write(checkpoint);
+        system.enableCheckpoints(checkpoint.toString(), 0);
+
+        assertThrows(IOException.class, () -> system.resumeRecommendations(tempDir.resolve("output.txt").toString()));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedFilesTest {
+    @TempDir
+    Path tempDir;
+
+    private Path writeGzip(String filename, List<String> lines) throws IOException {
+        Path filePath = tempDir.resolve(filename);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(filePath.toFile())),
+                StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        }
+        return filePath;
+    }
+
+    private static byte[] gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file.toFile()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public void testPlainAndCompressedTextAreBothUtf8() throws IOException {
+        List<String> lines = List.of("Am\u00E9lie,A123", "Romance,Com\u00E9die");
+        Path plain = tempDir.resolve("movies.txt");
+        Files.write(plain, lines, StandardCharsets.UTF_8);
+        Path compressed = writeGzip("movies.txt.gz", lines);
+
+        for (Path file : List.of(plain, compressed)) {
+            List<String> read = new ArrayList<>();
+            try (BufferedReader reader = CompressedFiles.openReader(file.toString())) {
+                reader.lines().forEach(read::add);
+            }
+            assertEquals(lines, read, file.toString());
+        }
+
+        Path written = tempDir.resolve("out.txt");
+        try (BufferedWriter writer = CompressedFiles.openWriter(written)) {
+            writer.write(lines.get(0));
+        }
+        assertEquals(lines.get(0), Files.readString(written, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testParallelBlocksFormOneGzipStream() throws IOException {
+        byte[] data = new byte[300_001];
+        Random random = new Random(3);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        Path file = tempDir.resolve("data.gz");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(file.toFile()), pool, 4096)) {
+            out.write(data, 0, 1000);
+            out.write(data[1000]);
+            out.write(data, 1001, data.length - 1001);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(data, gunzip(file));
+    }
+
+    @Test
+    public void testReadAheadDeliversEverythingThenTheFailure() throws IOException {
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 'x');
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(data), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("disk gone");
+            }
+        });
+
+        try (InputStream in = new ReadAheadInputStream(failing, 1000, 2)) {
+            byte[] read = new byte[data.length];
+            assertEquals(data.length, in.readNBytes(read, 0, read.length));
+            assertArrayEquals(data, read);
+            IOException e = assertThrows(IOException.class, in::read);
+            assertEquals("disk gone", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCompressedInputAndOutput() throws IOException {
+        List<String> movies = TestFiles.MOVIES;
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            users.add("User Number," + String.format("%09d", i));
+            users.add(i % 2 == 0 ? "TM123" : "I456");
+        }
+        Path moviesPlain = TestFiles.moviesFile(tempDir);
+        Path usersPlain = TestFiles.createTempFile(tempDir, "users.txt", users);
+
+        MovieRecommendationSystem plain = new MovieRecommendationSystem();
+        plain.loadMovies(moviesPlain.toString());
+        plain.loadUsers(usersPlain.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        plain.generateRecommendations(expected.toString());
+
+        MovieRecommendationSystem compressed = new MovieRecommendationSystem();
+        compressed.loadMovies(writeGzip("movies.txt.gz", movies).toString());
+        compressed.loadUsersSharded(writeGzip("users.txt.gz", users).toString());
+        Path actual = tempDir.resolve("actual.txt.gz");
+        compressed.generateRecommendations(actual.toString());
+
+        assertArrayEquals(Files.readAllBytes(expected), gunzip(actual));
+    }
+
+    @Test
+    public void testCheckpointsNeedUncompressedOutput() {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.enableCheckpoints(tempDir.resolve("checkpoint").toString(), 1000);
+
+        assertThrows(IllegalStateException.class,
+                () -> system.generateRecommendations(tempDir.resolve("out.txt.gz").toString()));
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionPlannerTest {
+    @TempDir
+    Path tempDir;
+
+    private static CatalogStatistics statistics(int users, int likesPerUser, int movies, int genres,
+                                                int genresPerMovie) {
+        int[] moviesPerGenre = new int[genres];
+        for (int genre = 0; genre < genres; genre++) {
+            moviesPerGenre[genre] = (int) ((long) movies * genresPerMovie / genres);
+        }
+        return new CatalogStatistics(users, (long) users * likesPerUser, movies, (genres + 63) / 64,
+                moviesPerGenre, movies * 12L);
+    }
+
+    @Test
+    public void testIndexUnionMatchesScan() {
+        Random random = new Random(7);
+        for (int genreCount : new int[] { 5, 64, 150 }) {
+            for (int movieCount : new int[] { 0, 1, 65, 999 }) {
+                GenreColumns columns = GenreColumns.of(GenreScanTest.randomMovies(random, movieCount, genreCount));
+                GenreIndex index = GenreIndex.of(columns);
+                for (int trial = 0; trial < 20; trial++) {
+                    long[] mask = columns.newMask();
+                    for (int liked = 0; liked < 3 && movieCount > 0; liked++) {
+                        columns.addGenresOf(random.nextInt(movieCount), mask);
+                    }
+
+                    long[] scanned = columns.newMovieBitset();
+                    GenreScan.scan(columns, mask, scanned);
+                    long[] unioned = columns.newMovieBitset();
+                    index.union(mask, unioned);
+
+                    assertArrayEquals(scanned, unioned, genreCount + " genres, " + movieCount + " movies");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmallInputsSkipTheIndex() {
+        ExecutionPlan plan = new ExecutionPlanner(8).plan(statistics(3, 2, 4, 5, 2));
+
+        assertEquals(ExecutionPlan.Strategy.DIRECT_SCAN, plan.getStrategy());
+        assertFalse(plan.usesIndex());
+    }
+
+    @Test
+    public void testLargeInputsGetTheScalablePath() {
+        CatalogStatistics large = statistics(1_000_000, 3, 50_000, 200, 2);
+
+        ExecutionPlan singleCore = new ExecutionPlanner(1).plan(large);
+        assertEquals(ExecutionPlan.Strategy.INDEX_UNION, singleCore.getStrategy());
+
+        ExecutionPlan multiCore = new ExecutionPlanner(8).plan(large);
+        assertEquals(ExecutionPlan.Strategy.PARALLEL, multiCore.getStrategy());
+        assertTrue(multiCore.getParallelism() > 1);
+        assertTrue(multiCore.getEstimatedCost() < singleCore.getEstimatedCost());
+    }
+
+    @Test
+    public void testForcedPlansWriteIdenticalOutput() throws IOException {
+        Random random = new Random(11);
+        List<String> movies = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            movies.add("Movie " + (i % 250) + ",M" + String.format("%03d", i));
+            movies.add("Genre" + random.nextInt(70) + ",Genre" + random.nextInt(70));
+        }
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            users.add("User Number," + String.format("%09d", i));
+            users.add("M" + String.format("%03d", random.nextInt(300)) + ",M" + String.format("%03d", random.nextInt(300)));
+        }
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.write(moviesFile, movies);
+        Files.write(usersFile, users);
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile.toString());
+        system.loadUsers(usersFile.toString());
+        Path expected = tempDir.resolve("scan.txt");
+        system.forcePlan(ExecutionPlan.Strategy.DIRECT_SCAN, 1);
+        system.generateRecommendations(expected.toString());
+        assertTrue(Files.readString(expected).startsWith("User Number,000000000"));
+
+        Path index = tempDir.resolve("index.txt");
+        system.forcePlan(ExecutionPlan.Strategy.INDEX_UNION, 1);
+        system.generateRecommendations(index.toString());
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(index));
+
+        Path parallel = tempDir.resolve("parallel.txt");
+        system.forcePlan(ExecutionPlan.Strategy.PARALLEL, 3);
+        system.generateRecommendations(parallel.toString());
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(parallel));
+
+        Path planned = tempDir.resolve("planned.txt");
+        system.forcePlan(null, 1);
+        system.generateRecommendations(planned.toString());
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(planned));
+    }
+
+    @Test
+    public void testForcedPlanRejectsInvalidParallelism() {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+
+        assertThrows(IllegalArgumentException.class, () -> system.forcePlan(ExecutionPlan.Strategy.DIRECT_SCAN, 2));
+        assertThrows(IllegalArgumentException.class, () -> system.forcePlan(ExecutionPlan.Strategy.PARALLEL, 0));
+    }
+}
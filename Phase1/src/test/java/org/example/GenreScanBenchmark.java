@@ -0,0 +1,48 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Compares the vector genre scan kernel against the scalar loop on a synthetic catalog.
+// Run with: java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes org.example.GenreScanBenchmark
+public class GenreScanBenchmark {
+    public static void main(String[] args) {
+        int movieCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int genreCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        Random random = new Random(7);
+        GenreColumns columns = GenreColumns.of(GenreScanTest.randomMovies(random, movieCount, genreCount));
+        long[][] masks = new long[64][];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = columns.newMask();
+            for (int liked = 0; liked < 3; liked++) {
+                columns.addGenresOf(random.nextInt(movieCount), masks[i]);
+            }
+        }
+        long[] matches = columns.newMovieBitset();
+
+        for (int round = 0; round < 3; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Arrays.fill(matches, 0);
+                GenreScan.scanScalar(columns, masks[i & 63], matches, 0);
+                sink += matches[0];
+            }
+            long scalarNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Arrays.fill(matches, 0);
+                VectorGenreScan.scan(columns, masks[i & 63], matches);
+                sink += matches[0];
+            }
+            long vectorNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: scalar %.1f ns/scan, vector %.1f ns/scan, speedup %.2fx (%d)%n",
+                    round, (double) scalarNanos / iterations, (double) vectorNanos / iterations,
+                    (double) scalarNanos / vectorNanos, sink & 1);
+        }
+    }
+}
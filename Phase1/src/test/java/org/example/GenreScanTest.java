@@ -0,0 +1,61 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenreScanTest {
+    // Random catalog with genreCount distinct genres and up to three genres per movie
+    static List<Movie> randomMovies(Random random, int movieCount, int genreCount) {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < movieCount; i++) {
+            String[] genres = new String[1 + random.nextInt(3)];
+            for (int g = 0; g < genres.length; g++) {
+                genres[g] = "Genre" + random.nextInt(genreCount);
+            }
+            movies.add(new Movie("Movie " + i, "M" + i, genres));
+        }
+        return movies;
+    }
+
+    @Test
+    public void testColumnsAssignOneBitPerGenre() {
+        List<Movie> movies = List.of(
+                new Movie("The Matrix", "TM123", new String[] { "Action", "Sci-Fi" }),
+                new Movie("Inception", "I456", new String[] { "Sci-Fi", "Thriller" }));
+        GenreColumns columns = GenreColumns.of(movies);
+
+        assertEquals(3, columns.genreCount());
+        assertEquals(1, columns.words());
+        long[] mask = columns.newMask();
+        columns.addGenresOf(0, mask);
+        assertEquals(2, Long.bitCount(mask[0]));
+    }
+
+    @Test
+    public void testVectorKernelMatchesScalarFallback() {
+        Random random = new Random(42);
+        for (int genreCount : new int[] { 5, 64, 150 }) {
+            for (int movieCount : new int[] { 0, 1, 7, 64, 999 }) {
+                GenreColumns columns = GenreColumns.of(randomMovies(random, movieCount, genreCount));
+                for (int trial = 0; trial < 20; trial++) {
+                    long[] mask = columns.newMask();
+                    if (movieCount > 0) {
+                        columns.addGenresOf(random.nextInt(movieCount), mask);
+                    }
+
+                    long[] scalar = columns.newMovieBitset();
+                    GenreScan.scanScalar(columns, mask, scalar, 0);
+                    long[] vector = columns.newMovieBitset();
+                    VectorGenreScan.scan(columns, mask, vector);
+
+                    assertArrayEquals(scalar, vector, genreCount + " genres, " + movieCount + " movies");
+                }
+            }
+        }
+    }
+}
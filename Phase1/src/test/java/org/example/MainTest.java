@@ -0,0 +1,52 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MainTest {
+    private static void assertRejected(String expectedMessage, String... args) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Main.Options.parse(args));
+        assertEquals(expectedMessage, e.getMessage());
+    }
+
+    @Test
+    public void testParsesOptionsAndFiles() {
+        Main.Options options = Main.Options.parse(new String[] {
+                "--popular", "3", "--plan", "PARALLEL", "--binary", "movies.txt", "users.txt", "out.bin" });
+
+        assertEquals(3, options.popular);
+        assertEquals(ExecutionPlan.Strategy.PARALLEL, options.plan);
+        assertTrue(options.binary);
+        assertEquals("movies.txt", options.moviesFile);
+        assertEquals("users.txt", options.usersFile);
+        assertEquals("out.bin", options.recommendationsFile);
+    }
+
+    @Test
+    public void testRejectsWrongFileCounts() {
+        assertRejected("Expected 3 files, got 2: [movies.txt, users.txt]", "movies.txt", "users.txt");
+        assertRejected("Expected 3 files, got 4: [a, b, c, d]", "a", "b", "c", "d");
+        assertRejected("--checkpoint needs a value", "a", "b", "c", "--checkpoint");
+        assertRejected("Unknown option --verbose", "--verbose", "a", "b", "c");
+    }
+
+    @Test
+    public void testRejectsOptionsTheBatchModesIgnore() {
+        assertRejected("--checkpoint can't be combined with --shards", "--shards", "4", "--checkpoint", "cp.txt");
+        assertRejected("--delta can't be combined with --shards", "--shards", "4", "--delta", "prev.txt", "h.bin");
+        assertRejected("--plan can't be combined with --memory-budget",
+                "--memory-budget", "1000000", "--plan", "DIRECT_SCAN");
+        assertRejected("--binary can't be combined with --memory-budget", "--memory-budget", "1000000", "--binary");
+        assertRejected("--popular can't be combined with --shards", "--shards", "2", "--popular", "5");
+        assertRejected("--shards and --memory-budget can't be combined", "--shards", "2", "--memory-budget", "10");
+    }
+
+    @Test
+    public void testRejectsConflictingOutputModes() {
+        assertRejected("--resume needs --checkpoint", "--resume");
+        assertRejected("Only one of --checkpoint, --delta and --binary can be given",
+                "--checkpoint", "cp.txt", "--binary");
+        assertRejected("--plan can't be combined with --delta", "--plan", "INDEX_UNION", "--delta", "prev.txt", "h.bin");
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIdIndexTest {
+    private static Movie movie(String id) {
+        return new Movie("Movie " + id, id, new String[] { "Drama" });
+    }
+
+    @Test
+    public void testFindsEveryIdOfAFullCatalog() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            movies.add(movie("M" + String.format("%03d", (i * 7) % 1000)));
+        }
+        MovieIdIndex index = new MovieIdIndex(movies);
+
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(i, index.indexOf(movies.get(i).getId()));
+        }
+        assertEquals(0, index.overflowCount());
+        assertEquals(MovieIdIndex.NOT_FOUND, index.indexOf("X000"));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.indexOf("M1000"));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.indexOf(""));
+    }
+
+    @Test
+    public void testIdsOutsideTheGrammarAndSharedNumbers() {
+        List<Movie> movies = Arrays.asList(
+                movie("TM123"),
+                movie("I123"),
+                movie("weird"),
+                movie("AB"),
+                movie("TM123"),
+                movie("X12a"));
+        MovieIdIndex index = new MovieIdIndex(movies);
+
+        assertEquals(0, index.indexOf("TM123"));
+        assertEquals(1, index.indexOf("I123"));
+        assertEquals(2, index.indexOf("weird"));
+        assertEquals(3, index.indexOf("AB"));
+        assertEquals(5, index.indexOf("X12a"));
+        assertEquals(4, index.overflowCount());
+        assertEquals(MovieIdIndex.NOT_FOUND, index.indexOf("Z123"));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.indexOf("other"));
+    }
+
+    @Test
+    public void testSnapshotResolvesLikesAndCountsUnknownReferences() {
+        User first = new User("First", "000000001");
+        first.addLikedMovieId("TM123");
+        first.addLikedMovieId("NOPE999");
+        User second = new User("Second", "000000002");
+        second.addLikedMovieId("GONE001");
+        List<Movie> movies = Arrays.asList(
+                new Movie("The Matrix", "TM123", new String[] { "Action" }),
+                new Movie("Die Hard", "DH456", new String[] { "Action" }));
+
+        CatalogSnapshot usersFirst = CatalogSnapshot.EMPTY.withUsers(Arrays.asList(first, second), null);
+        assertEquals(3, usersFirst.getUnknownMovieReferences());
+
+        CatalogSnapshot catalog = usersFirst.withMovies(movies, null);
+        assertEquals(2, catalog.getUnknownMovieReferences());
+        assertEquals(catalog.recommend(first), catalog.recommend(0));
+        assertEquals(List.of("Die Hard"), new ArrayList<>(catalog.recommend(0)));
+        assertTrue(catalog.recommend(1).isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIdListTest {
+    @Test
+    public void testValidatorGivesSameResultsAsWithAPlainList() {
+        List<String> existing = Arrays.asList("TM123", "I456", "AB1C23", "XYZ");
+        List<String> plain = new ArrayList<>(existing);
+        MovieIdList indexed = new MovieIdList();
+        existing.forEach(indexed::add);
+
+        String[][] candidates = {
+                { "TM123", "The Matrix" },
+                { "I123", "Inception" },
+                { "T456", "Titanic" },
+                { "T789", "Titanic" },
+                { "T023", "Titanic" },
+                { "TM12", "The Matrix" },
+        };
+        for (String[] candidate : candidates) {
+            assertEquals(Validator.validateMovieId(candidate[0], candidate[1], plain),
+                    Validator.validateMovieIdIndexed(candidate[0], candidate[1], indexed), candidate[0]);
+        }
+        assertTrue(indexed.contains("XYZ"));
+        assertTrue(indexed.containsNumbers("1C23"));
+        assertFalse(indexed.containsNumbers(""));
+    }
+
+    @Test
+    public void testNullExistingIdsAreNotChecked() {
+        assertNull(Validator.validateMovieIdIndexed("TM123", "The Matrix", null));
+        assertEquals("ERROR: Movie Id numbers TM12 are wrong",
+                Validator.validateMovieIdIndexed("TM12", "The Matrix", null));
+    }
+}
@@ -52,7 +52,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator to always return null (no errors)
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(anyString(), anyString(), anyList())).thenReturn(null);
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(anyString(), anyString(), any(MovieIdList.class))).thenReturn(null);
 
             // Act
             recommendationSystem.loadMovies(moviesFile.getAbsolutePath());
@@ -106,7 +106,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(eq("TM12"), eq("The Matrix"), anyList()))
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(eq("TM12"), eq("The Matrix"), any(MovieIdList.class)))
                     .thenReturn(expectedError);
 
             // Act
@@ -136,7 +136,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(anyString(), anyString(), anyList())).thenReturn(null);
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(anyString(), anyString(), any(MovieIdList.class))).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserName(anyString())).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserId(anyString(), anySet())).thenReturn(null);
 
@@ -172,7 +172,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(anyString(), anyString(), anyList())).thenReturn(null);
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(anyString(), anyString(), any(MovieIdList.class))).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserName(" John Doe")).thenReturn(expectedError);
 
             // Act
@@ -209,7 +209,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(anyString(), anyString(), anyList())).thenReturn(null);
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(anyString(), anyString(), any(MovieIdList.class))).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserName(anyString())).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserId(anyString(), anySet())).thenReturn(null);
 
@@ -252,7 +252,7 @@ public class MovieRecommendationSystemTest {
         // Mock the validator
         try (MockedStatic<Validator> validatorMock = Mockito.mockStatic(Validator.class)) {
             validatorMock.when(() -> Validator.validateMovieTitle(anyString())).thenReturn(null);
-            validatorMock.when(() -> Validator.validateMovieId(anyString(), anyString(), anyList())).thenReturn(null);
+            validatorMock.when(() -> Validator.validateMovieIdIndexed(anyString(), anyString(), any(MovieIdList.class))).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserName(anyString())).thenReturn(null);
             validatorMock.when(() -> Validator.validateUserId(anyString(), anySet())).thenReturn(null);
 
@@ -64,5 +64,32 @@ public class MovieTest {
         assertTrue(movie.hasGenre("Action"));
         assertTrue(movie.hasGenre(" Thriller "));
     }
-}
 
+    @Test
+    public void testGetGenresReturnsACopy() {
+        // Arrange
+        String[] genres = { "Action", "Sci-Fi" };
+        Movie movie = new Movie("The Matrix", "TM123", genres);
+
+        // Act
+        genres[0] = "Drama"; // Modify the array passed in
+        movie.getGenres()[1] = "Comedy"; // Modify the returned array
+
+        // Assert
+        assertArrayEquals(new String[] { "Action", "Sci-Fi" }, movie.getGenres());
+        assertNotSame(movie.getGenres(), movie.getGenres());
+    }
+
+    @Test
+    public void testNullTitleIdAndGenres() {
+        // Act
+        Movie movie = new Movie(null, null, null);
+        Movie nullGenre = new Movie("The Matrix", "TM123", new String[] { null });
+
+        // Assert
+        assertNull(movie.getTitle());
+        assertNull(movie.getId());
+        assertNull(movie.getGenres());
+        assertArrayEquals(new String[] { null }, nullGenre.getGenres());
+    }
+}
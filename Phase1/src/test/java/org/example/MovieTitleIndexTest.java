@@ -0,0 +1,132 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieTitleIndexTest {
+    @TempDir
+    Path tempDir;
+
+    private static Movie movie(String title, String id) {
+        return new Movie(title, id, new String[] { "Drama" });
+    }
+
+    @Test
+    public void testMatchesIgnoringCaseAndWhitespace() {
+        MovieTitleIndex index = new MovieTitleIndex(Arrays.asList(
+                movie("The Godfather", "TG001"),
+                movie("Taxi Driver", "TD002"),
+                movie("Am\u00E9lie", "A003")));
+
+        assertEquals(0, index.indexOf("The Godfather"));
+        assertEquals(0, index.indexOf("  the   GODFATHER "));
+        assertEquals(0, index.indexOf("the\tgodfather"));
+        assertEquals(1, index.indexOf("taxi driver"));
+        assertEquals(2, index.indexOf(" AM\u00C9LIE"));
+        assertEquals(MovieTitleIndex.NOT_FOUND, index.indexOf("TheGodfather"));
+        assertEquals(MovieTitleIndex.NOT_FOUND, index.indexOf("The Godfather II"));
+        assertEquals(MovieTitleIndex.NOT_FOUND, index.indexOf("The"));
+        assertEquals(MovieTitleIndex.NOT_FOUND, index.indexOf(""));
+    }
+
+    @Test
+    public void testHashMatchesNormalizedString() {
+        for (String title : new String[] { "", " ", "A", " The  Big\tLebowski ", "UPPER lower", "\u00C9T\u00C9 \uD801\uDC00" }) {
+            byte[] utf8 = title.getBytes(StandardCharsets.UTF_8);
+            assertEquals(Arrays.hashCode(MovieTitleIndex.normalize(utf8, 0, utf8.length)),
+                    MovieTitleIndex.normalizedHash(utf8, 0, utf8.length), title);
+        }
+    }
+
+    @Test
+    public void testSharedTitlesAreAmbiguous() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            movies.add(movie("Movie Number " + i, "MN" + String.format("%03d", i)));
+        }
+        movies.add(movie("movie  number 7", "MN500"));
+        MovieTitleIndex index = new MovieTitleIndex(movies);
+
+        assertEquals(MovieTitleIndex.AMBIGUOUS, index.indexOf("Movie Number 7"));
+        for (int i = 0; i < 500; i++) {
+            if (i != 7) {
+                assertEquals(i, index.indexOf("movie number " + i));
+            }
+        }
+    }
+
+    @Test
+    public void testLikesGivenAsTitlesAreResolvedAndCounted() throws IOException {
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.write(moviesFile, Arrays.asList(
+                "The Godfather,TG001",
+                "Crime,Drama",
+                "Goodfellas,G002",
+                "Crime",
+                "Heat,H003",
+                "Crime,Action",
+                "Heat,H004",
+                "Thriller"));
+        Files.write(usersFile, Arrays.asList(
+                "Hassan Ali,12345678X",
+                "the godfather, G002",
+                "Ali Mohamed,87654321W",
+                "Heat, Unknown Movie",
+                "Maria Ashraf,87654322W",
+                "H003"));
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile.toString());
+        system.loadUsers(usersFile.toString());
+        CatalogSnapshot catalog = system.snapshot();
+
+        assertEquals(1, catalog.getTitleMovieReferences());
+        assertEquals(1, catalog.getAmbiguousMovieReferences());
+        assertEquals(1, catalog.getUnknownMovieReferences());
+        assertEquals(List.of("Heat"), new ArrayList<>(catalog.recommend(0)));
+        assertTrue(catalog.recommend(1).isEmpty());
+        assertEquals(catalog.recommend(catalog.getUsers().get(0)), catalog.recommend(0));
+        assertEquals(List.of("The Godfather", "Goodfellas"), new ArrayList<>(catalog.recommend(2)));
+    }
+
+    @Test
+    public void testMovieLikedByIdAndByTitleCountsOnce() throws IOException {
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.write(moviesFile, Arrays.asList(
+                "The Godfather,TG001",
+                "Crime",
+                "Heat,H003",
+                "Action",
+                "Lonely Movie,LM005",
+                "Documentary"));
+        Files.write(usersFile, Arrays.asList(
+                "Hassan Ali,12345678X",
+                "TG001, the godfather",
+                "Ali Mohamed,87654321W",
+                "Heat",
+                "Maria Ashraf,87654322W",
+                "H003",
+                "Omar Khaled,87654323W",
+                "LM005"));
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.enablePopularityFallback(1);
+        system.loadMovies(moviesFile.toString());
+        system.loadUsers(usersFile.toString());
+
+        // Heat has two fans; The Godfather has one, who named it twice
+        assertEquals(List.of("Heat"), new ArrayList<>(system.snapshot().recommend(3)));
+    }
+}
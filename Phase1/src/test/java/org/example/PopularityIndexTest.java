@@ -0,0 +1,118 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularityIndexTest {
+    @TempDir
+    Path tempDir;
+
+    private Path moviesFile() throws IOException {
+        List<String> lines = new ArrayList<>(TestFiles.MOVIES);
+        lines.addAll(Arrays.asList("Lonely Movie,LM111", "Documentary"));
+        return TestFiles.createTempFile(tempDir, "movies.txt", lines);
+    }
+
+    private Path usersFile(String filename, String... likes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < likes.length; i++) {
+            lines.add("User Number," + String.format("%09d", filename.hashCode() % 1000 * 1000 + i));
+            lines.add(likes[i]);
+        }
+        return TestFiles.createTempFile(tempDir, filename, lines);
+    }
+
+    private static List<String> output(Path file) throws IOException {
+        return Files.readAllLines(file);
+    }
+
+    @Test
+    public void testCountsEachUserOnceAndIncrementally() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile().toString());
+        String[] likes = new String[10_000];
+        for (int i = 0; i < likes.length; i++) {
+            likes[i] = i % 2 == 0 ? "TM123,TM123,I456" : "TM123,UNKNOWN1,TM123";
+        }
+        system.loadUsers(usersFile("first.txt", likes).toString());
+
+        PopularityIndex popularity = new PopularityIndex();
+        popularity.update(system.snapshot());
+        assertEquals(10_000, popularity.count(0));
+        assertEquals(5_000, popularity.count(1));
+        assertEquals(0, popularity.count(2));
+
+        // Only the users added since the last update are counted
+        system.loadUsers(usersFile("second.txt", "T789,TM123").toString());
+        popularity.update(system.snapshot());
+        assertEquals(10_001, popularity.count(0));
+        assertEquals(1, popularity.count(2));
+
+        // Loading movies renumbers the catalog, so everything is counted again
+        system.loadMovies(TestFiles.createTempFile(tempDir, "more.txt", "Avatar,A999", "Action").toString());
+        popularity.update(system.snapshot());
+        assertEquals(10_001, popularity.count(0));
+        assertEquals(0, popularity.count(4));
+    }
+
+    @Test
+    public void testNothingIsCountedWhileTheFallbackIsOff() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile().toString());
+        system.loadUsers(usersFile("users.txt", "T789", "T789", "I456").toString());
+        assertTrue(system.snapshot().recommend(2).contains("The Matrix"));
+
+        // Enabling the fallback counts the users loaded so far
+        system.enablePopularityFallback(1);
+        system.loadUsers(usersFile("second.txt", "LM111").toString());
+        assertEquals(List.of("Titanic"), new ArrayList<>(system.snapshot().recommend(3)));
+    }
+
+    @Test
+    public void testFallbackServesUsersWithoutMatches() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.enablePopularityFallback(2);
+        system.loadMovies(moviesFile().toString());
+        system.loadUsers(usersFile("users.txt", "T789", "T789,TM123", "I456", "LM111", "UNKNOWN1").toString());
+
+        Path output = tempDir.resolve("recommendations.txt");
+        system.generateRecommendations(output.toString());
+
+        List<String> lines = output(output);
+        // Titanic has 2 likes; The Matrix wins the tie at 1 like by coming first in the catalog
+        assertEquals("The Matrix,Titanic", lines.get(7));
+        assertEquals("The Matrix,Titanic", lines.get(9));
+        // A liked movie is not recommended back
+        assertEquals("The Matrix", lines.get(1));
+        // Normal recommendations are unaffected
+        assertEquals("Inception", lines.get(3));
+        assertEquals("The Matrix", lines.get(5));
+    }
+
+    @Test
+    public void testFallbackSkipsLikedMoviesAndUpdatesIncrementally() throws IOException {
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(moviesFile().toString());
+        system.loadUsers(usersFile("first.txt", "LM111", "I456").toString());
+
+        CatalogSnapshot withoutFallback = system.snapshot();
+        assertTrue(withoutFallback.recommend(0).isEmpty());
+
+        system.enablePopularityFallback(1);
+        assertEquals(List.of("Inception"), new ArrayList<>(system.snapshot().recommend(0)));
+
+        system.loadUsers(usersFile("second.txt", "LM111", "LM111", "LM111").toString());
+        // Lonely Movie is now the most liked, but users who liked it get nothing else
+        assertTrue(system.snapshot().recommend(0).isEmpty());
+        assertEquals(5, system.snapshot().getUsers().size());
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Random;
+
+// Heap bytes allocated per user by the recommendation kernel and writer, with fresh working
+// memory per user against a reused RecommendationScratch, for both the scan and the index kernel.
+// Run with: java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes org.example.RecommendationAllocationBenchmark
+public class RecommendationAllocationBenchmark {
+    public static void main(String[] args) throws IOException {
+        int movieCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int genreCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        CatalogSnapshot catalog = RecommendationAllocationTest.randomCatalog(new Random(7), movieCount, genreCount,
+                userCount);
+        GenreIndex index = catalog.genreIndex();
+        RecommendationScratch scratch = catalog.newScratch();
+
+        try (RecommendationWriter writer = new RecommendationWriter(RecommendationAllocationTest.discardingChannel())) {
+            RecommendationAllocationTest.UserTask[] tasks = {
+                    userIndex -> writer.writeUser(catalog, userIndex, catalog.recommendedMovies(userIndex, null)),
+                    userIndex -> writer.writeUser(catalog, userIndex,
+                            catalog.recommendedMovies(userIndex, null, scratch)),
+                    userIndex -> writer.writeUser(catalog, userIndex, catalog.recommendedMovies(userIndex, index)),
+                    userIndex -> writer.writeUser(catalog, userIndex,
+                            catalog.recommendedMovies(userIndex, index, scratch)),
+            };
+            String[] names = { "scan, fresh memory", "scan, scratch", "index, fresh memory", "index, scratch" };
+
+            for (int round = 0; round < 3; round++) {
+                for (int t = 0; t < tasks.length; t++) {
+                    long start = System.nanoTime();
+                    double perUser = RecommendationAllocationTest.allocatedBytesPerUser(userCount, tasks[t]);
+                    long nanos = System.nanoTime() - start;
+                    System.out.printf("round %d: %-20s %8.1f bytes/user, %6.0f ns/user%n",
+                            round, names[t], perUser, (double) nanos / userCount);
+                }
+            }
+        }
+    }
+}
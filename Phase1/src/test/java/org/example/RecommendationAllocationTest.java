@@ -0,0 +1,121 @@
+package org.example;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationAllocationTest {
+    interface UserTask {
+        void run(int userIndex) throws IOException;
+    }
+
+    // Random catalog where every user likes a few movies; some titles repeat
+    static CatalogSnapshot randomCatalog(Random random, int movieCount, int genreCount, int userCount) {
+        List<Movie> movies = GenreScanTest.randomMovies(random, movieCount, genreCount);
+        movies.set(movieCount - 1, new Movie("Movie 0", "M" + (movieCount - 1), movies.get(movieCount - 1).getGenres()));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("User Number", String.format("%09d", i));
+            for (int liked = random.nextInt(4); liked > 0; liked--) {
+                user.addLikedMovieId("M" + random.nextInt(movieCount));
+            }
+            users.add(user);
+        }
+        return CatalogSnapshot.EMPTY.withMovies(movies, null).withUsers(users, null);
+    }
+
+    // Accepts and discards everything, without allocating
+    static WritableByteChannel discardingChannel() {
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) {
+                int length = source.remaining();
+                source.position(source.limit());
+                return length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // Heap bytes the current thread allocates per user while running task over every user
+    static double allocatedBytesPerUser(int userCount, UserTask task) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int userIndex = 0; userIndex < userCount; userIndex++) {
+            task.run(userIndex);
+        }
+        return (double) (threads.getThreadAllocatedBytes(threadId) - before) / userCount;
+    }
+
+    @Test
+    public void testScratchGivesTheSameMatchesAsFreshMemory() {
+        CatalogSnapshot catalog = randomCatalog(new Random(3), 300, 90, 2000);
+        GenreIndex index = catalog.genreIndex();
+        RecommendationScratch scratch = catalog.newScratch();
+
+        for (int userIndex = 0; userIndex < catalog.getUsers().size(); userIndex++) {
+            long[] fresh = catalog.recommendedMovies(userIndex);
+            assertArrayEquals(fresh, catalog.recommendedMovies(userIndex, null, scratch));
+            assertArrayEquals(fresh, catalog.recommendedMovies(userIndex, index, scratch));
+            assertArrayEquals(fresh, catalog.recommendedMovies(catalog.getUsers().get(userIndex), scratch));
+        }
+    }
+
+    // Relies on the JIT's escape analysis for the vector scan, so it only runs in the performance
+    // profile: mvn test -Pperformance
+    @Test
+    @Tag("performance")
+    public void testWritingUsersAllocatesNothingInSteadyState() throws IOException {
+        CatalogSnapshot catalog = randomCatalog(new Random(5), 500, 120, 20_000);
+        GenreIndex index = catalog.genreIndex();
+        RecommendationScratch scratch = catalog.newScratch();
+        int users = catalog.getUsers().size();
+
+        try (RecommendationWriter writer = new RecommendationWriter(discardingChannel())) {
+            UserTask task = userIndex ->
+                    writer.writeUser(catalog, userIndex, catalog.recommendedMovies(userIndex, index, scratch));
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                allocatedBytesPerUser(users, task);
+            }
+            double perUser = allocatedBytesPerUser(users, task);
+
+            assertTrue(perUser < 1, perUser + " bytes allocated per user");
+        }
+    }
+
+    // The User form resolves the likes itself, through the user's arena handles
+    @Test
+    @Tag("performance")
+    public void testWritingUserObjectsAllocatesNothingInSteadyState() throws IOException {
+        CatalogSnapshot catalog = randomCatalog(new Random(7), 500, 120, 20_000);
+        List<User> userList = catalog.getUsers();
+
+        try (RecommendationWriter writer = new RecommendationWriter(discardingChannel())) {
+            UserTask task = userIndex -> writer.writeUser(catalog, userList.get(userIndex));
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                allocatedBytesPerUser(userList.size(), task);
+            }
+            double perUser = allocatedBytesPerUser(userList.size(), task);
+
+            assertTrue(perUser < 1, perUser + " bytes allocated per user");
+        }
+    }
+}
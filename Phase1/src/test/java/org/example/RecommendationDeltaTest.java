@@ -0,0 +1,117 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationDeltaTest {
+    @TempDir
+    Path tempDir;
+
+    private MovieRecommendationSystem loadedSystem(String... userLines) throws IOException {
+        List<String> movieLines = new ArrayList<>(TestFiles.MOVIES);
+        movieLines.addAll(Arrays.asList("The Notebook,TN321", "Romance"));
+        Path movies = TestFiles.createTempFile(tempDir, "movies.txt", movieLines);
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(TestFiles.createTempFile(tempDir, "users.txt", userLines).toString());
+        return system;
+    }
+
+    @Test
+    public void testHashIgnoresOrder() {
+        assertEquals(RecommendationDelta.hash(List.of("Inception", "Titanic")),
+                RecommendationDelta.hash(List.of("Titanic", "Inception")));
+        assertNotEquals(RecommendationDelta.hash(List.of("Inception")),
+                RecommendationDelta.hash(List.of("Titanic")));
+        assertEquals(0, RecommendationDelta.hash(Set.of()));
+    }
+
+    @Test
+    public void testDeltaAgainstPreviousOutput() throws IOException {
+        MovieRecommendationSystem before = loadedSystem(
+                "John Doe,123456789", "TM123",
+                "Jane Smith,987654321", "T789",
+                "Old Timer,111111111", "I456");
+        Path previous = tempDir.resolve("previous.txt");
+        before.generateRecommendations(previous.toString());
+
+        MovieRecommendationSystem after = loadedSystem(
+                "John Doe,123456789", "TM123",
+                "Jane Smith,987654321", "TM123",
+                "New Comer,222222222", "TN321");
+        Path delta = tempDir.resolve("delta.txt");
+        int written = after.generateDelta(previous.toString(), delta.toString(), null);
+
+        assertEquals(3, written);
+        assertEquals(Arrays.asList(
+                "~Jane Smith,987654321", "Inception",
+                "+New Comer,222222222", "Titanic",
+                "-Old Timer,111111111"), Files.readAllLines(delta));
+    }
+
+    @Test
+    public void testDeltaBetweenCompressedFiles() throws IOException {
+        MovieRecommendationSystem before = loadedSystem(
+                "John Doe,123456789", "TM123",
+                "Jane Smith,987654321", "T789");
+        Path previous = tempDir.resolve("previous.txt.gz");
+        before.generateRecommendations(previous.toString());
+
+        MovieRecommendationSystem after = loadedSystem(
+                "John Doe,123456789", "TM123",
+                "Jane Smith,987654321", "TM123");
+        Path delta = tempDir.resolve("delta.txt.gz");
+        assertEquals(1, after.generateDelta(previous.toString(), delta.toString(), null));
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = CompressedFiles.openReader(delta.toString())) {
+            reader.lines().forEach(lines::add);
+        }
+        assertEquals(Arrays.asList("~Jane Smith,987654321", "Inception"), lines);
+    }
+
+    @Test
+    public void testDeltaAgainstHashFile() throws IOException {
+        String[] users = { "John Doe,123456789", "TM123", "Jane Smith,987654321", "T789" };
+        Path hashes = tempDir.resolve("hashes.bin");
+        loadedSystem(users).generateDelta(null, tempDir.resolve("first.txt").toString(), hashes.toString());
+        assertEquals(4, Files.readAllLines(tempDir.resolve("first.txt")).size());
+
+        Path delta = tempDir.resolve("delta.txt");
+        int written = loadedSystem(users).generateDelta(hashes.toString(), delta.toString(), hashes.toString());
+
+        assertEquals(0, written);
+        assertTrue(Files.readAllLines(delta).isEmpty());
+    }
+
+    @Test
+    public void testUnchangedNonAsciiTitleIsNotReported() throws IOException {
+        Path movies = TestFiles.createTempFile(tempDir, "movies.txt",
+                "Am\u00E9lie,A123",
+                "Romance,Comedy",
+                "Titanic,T789",
+                "Romance,Drama");
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", "John Doe,123456789", "T789");
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        Path previous = tempDir.resolve("previous.txt");
+        system.generateRecommendations(previous.toString());
+
+        Path delta = tempDir.resolve("delta.txt");
+        assertEquals(0, system.generateDelta(previous.toString(), delta.toString(), null));
+        assertTrue(Files.readAllLines(delta, StandardCharsets.UTF_8).isEmpty());
+    }
+}
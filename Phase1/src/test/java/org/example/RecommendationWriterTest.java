@@ -0,0 +1,107 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationWriterTest {
+    @TempDir
+    Path tempDir;
+
+    private CatalogSnapshot catalog(List<User> users) {
+        List<Movie> movies = Arrays.asList(
+                new Movie("The Matrix", "TM123", new String[] { "Action", "Sci-Fi" }),
+                new Movie("Am\u00E9lie", "A456", new String[] { "Romance", "Sci-Fi" }),
+                new Movie("\u5343\u3068\u5343\u5C0B\u306E\u795E\u96A0\u3057", "S789", new String[] { "Fantasy", "Action" }),
+                new Movie("Titanic", "T111", new String[] { "Romance", "Drama" }),
+                new Movie("Am\u00E9lie", "A222", new String[] { "Drama" }));
+        return CatalogSnapshot.EMPTY.withMovies(movies, null).withUsers(users, null);
+    }
+
+    private static User user(String name, String id, String... likedMovieIds) {
+        User user = new User(name, id);
+        for (String movieId : likedMovieIds) {
+            user.addLikedMovieId(movieId);
+        }
+        return user;
+    }
+
+    // The record format written with Strings: "name,id", then the titles or "No recommendations"
+    private static byte[] expected(CatalogSnapshot catalog) {
+        StringBuilder expected = new StringBuilder();
+        for (User user : catalog.getUsers()) {
+            expected.append(user.getName()).append(',').append(user.getId()).append(System.lineSeparator());
+            String titles = String.join(",", catalog.recommend(user));
+            expected.append(titles.isEmpty() ? "No recommendations" : titles).append(System.lineSeparator());
+        }
+        return expected.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] write(CatalogSnapshot catalog, int bufferBytes) throws IOException {
+        Path output = tempDir.resolve("out-" + bufferBytes + ".txt");
+        FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try (RecommendationWriter writer = new RecommendationWriter(channel, bufferBytes)) {
+            for (User user : catalog.getUsers()) {
+                writer.writeUser(catalog, user);
+            }
+        }
+        return Files.readAllBytes(output);
+    }
+
+    @Test
+    public void testMatchesStringOutputForNonAsciiText() throws IOException {
+        CatalogSnapshot catalog = catalog(Arrays.asList(
+                user("Zo\u00EB \u00C5ngstr\u00F6m", "12345678A", "TM123"),
+                user("\u00DCn\u00EFc\u00F8d\u00E9 \uD83D\uDE00 Fan", "12345678B", "T111"),
+                user("Nobody", "12345678C", "X999"),
+                user("Bad \uD800 Surrogate", "12345678D", "S789")));
+
+        byte[] output = write(catalog, RecommendationWriter.DEFAULT_BUFFER_BYTES);
+
+        assertArrayEquals(expected(catalog), output);
+        String text = new String(output, StandardCharsets.UTF_8);
+        assertTrue(text.contains("No recommendations"));
+        assertTrue(text.contains("Bad ? Surrogate"));
+    }
+
+    @Test
+    public void testRecordsSpanningSmallBuffers() throws IOException {
+        List<User> users = new ArrayList<>();
+        Random random = new Random(7);
+        String[] movieIds = { "TM123", "A456", "S789", "T111", "A222" };
+        for (int i = 0; i < 500; i++) {
+            users.add(user("\u00D1ame " + i + " \uD83D\uDE00", String.format("%09d", i), movieIds[random.nextInt(movieIds.length)]));
+        }
+        CatalogSnapshot catalog = catalog(users);
+
+        byte[] expected = expected(catalog);
+        for (int bufferBytes : new int[] { 4, 5, 7, 64, 1000 }) {
+            assertArrayEquals(expected, write(catalog, bufferBytes), "buffer size " + bufferBytes);
+        }
+    }
+
+    @Test
+    public void testCloseWritesOutBufferedBytes() throws IOException {
+        Path output = tempDir.resolve("out.txt");
+        FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        RecommendationWriter writer = new RecommendationWriter(channel, 16);
+        String error = "ERROR: Movie Title \u00E9";
+        writer.writeError(error);
+        writer.close();
+
+        long expected = (error + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(expected, Files.size(output));
+    }
+}
@@ -0,0 +1,187 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Measures each pipeline stage at doubling input sizes and fits the growth exponent k of
+// time ~ n^k on a log-log scale. A stage fails when k exceeds its declared complexity by more than
+// the tolerance, which catches e.g. an accidentally quadratic validation loop.
+// Only runs with the performance profile: mvn test -Pperformance
+@Tag("performance")
+public class ScalingRegressionTest {
+    private static final double LINEAR = 1.0;
+    private static final double TOLERANCE = 0.35;
+    private static final int RUNS = 5;
+    private static final int WARM_UP_PASSES = 2;
+    // Enough genres that a user matches a few percent of the catalog, like the real data
+    private static final int GENRES = 200;
+    private static final int[] MOVIE_COUNTS = { 125, 250, 500, 1000 };
+    private static final int[] USER_COUNTS = { 25_000, 50_000, 100_000, 200_000 };
+    // Small catalogs load in well under a millisecond, so they are timed over many loads
+    private static final int MOVIE_LOADS_PER_RUN = 50;
+
+    @TempDir
+    static Path tempDir;
+
+    interface Stage {
+        void run(int size) throws IOException;
+    }
+
+    @BeforeAll
+    public static void writeInputs() throws IOException {
+        for (int movieCount : MOVIE_COUNTS) {
+            writeMovies(moviesFile(movieCount), movieCount);
+        }
+        for (int userCount : USER_COUNTS) {
+            writeUsers(usersFile(userCount), userCount, 1000);
+        }
+    }
+
+    private static Path moviesFile(int movieCount) {
+        return tempDir.resolve("movies-" + movieCount + ".txt");
+    }
+
+    private static Path usersFile(int userCount) {
+        return tempDir.resolve("users-" + userCount + ".txt");
+    }
+
+    private static void writeMovies(Path file, int movieCount) throws IOException {
+        Random random = new Random(movieCount);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < movieCount; i++) {
+                writer.write("Scaling Movie " + i + ",SM" + String.format("%03d", i));
+                writer.newLine();
+                writer.write("Genre" + random.nextInt(GENRES) + ",Genre" + random.nextInt(GENRES));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void writeUsers(Path file, int userCount, int movieCount) throws IOException {
+        Random random = new Random(userCount);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < userCount; i++) {
+                writer.write("Scaling User," + String.format("%09d", i));
+                writer.newLine();
+                for (int liked = 0; liked < 3; liked++) {
+                    if (liked > 0) {
+                        writer.write(',');
+                    }
+                    writer.write("SM" + String.format("%03d", random.nextInt(movieCount)));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    // Best of RUNS, after untimed warm-up passes over every size. Collecting garbage before each
+    // run keeps the previous run's heap from being charged to the next one.
+    private static double[] measure(int[] sizes, Stage stage) throws IOException {
+        for (int warmUp = 0; warmUp < WARM_UP_PASSES; warmUp++) {
+            for (int size : sizes) {
+                stage.run(size);
+            }
+        }
+        double[] nanos = new double[sizes.length];
+        for (int s = 0; s < sizes.length; s++) {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                System.gc();
+                long start = System.nanoTime();
+                stage.run(sizes[s]);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            nanos[s] = best;
+        }
+        return nanos;
+    }
+
+    // Least-squares slope of log(time) over log(size)
+    static double growthExponent(int[] sizes, double[] nanos) {
+        int n = sizes.length;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += Math.log(sizes[i]) / n;
+            meanY += Math.log(nanos[i]) / n;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            covariance += dx * (Math.log(nanos[i]) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+    private static void assertScales(String stage, double declared, int[] sizes, double[] nanos) {
+        double exponent = growthExponent(sizes, nanos);
+        StringBuilder timings = new StringBuilder();
+        for (int i = 0; i < sizes.length; i++) {
+            timings.append(String.format(" %d:%.2fms", sizes[i], nanos[i] / 1e6));
+        }
+        System.out.printf("%s grows as n^%.2f (declared n^%.1f);%s%n", stage, exponent, declared, timings);
+        assertTrue(exponent <= declared + TOLERANCE,
+                String.format("%s grows as n^%.2f, declared n^%.1f;%s", stage, exponent, declared, timings));
+    }
+
+    @Test
+    public void testGrowthExponentFit() {
+        int[] sizes = { 10, 20, 40, 80 };
+        assertEquals(1.0, growthExponent(sizes, new double[] { 5, 10, 20, 40 }), 1e-9);
+        assertEquals(2.0, growthExponent(sizes, new double[] { 1, 4, 16, 64 }), 1e-9);
+    }
+
+    @Test
+    public void testLoadMoviesIsLinearInMovies() throws IOException {
+        double[] nanos = measure(MOVIE_COUNTS, movieCount -> {
+            for (int load = 0; load < MOVIE_LOADS_PER_RUN; load++) {
+                MovieRecommendationSystem system = new MovieRecommendationSystem();
+                system.loadMovies(moviesFile(movieCount).toString());
+                assertNull(system.getFirstError());
+            }
+        });
+        assertScales("loadMovies", LINEAR, MOVIE_COUNTS, nanos);
+    }
+
+    @Test
+    public void testLoadUsersIsLinearInUsers() throws IOException {
+        double[] nanos = measure(USER_COUNTS, userCount -> {
+            MovieRecommendationSystem system = new MovieRecommendationSystem();
+            system.loadUsers(usersFile(userCount).toString());
+            assertEquals(userCount, system.snapshot().getUsers().size());
+        });
+        assertScales("loadUsers", LINEAR, USER_COUNTS, nanos);
+    }
+
+    @Test
+    public void testGenerateRecommendationsIsLinearInUsers() throws IOException {
+        Path output = tempDir.resolve("recommendations.txt");
+        MovieRecommendationSystem[] systems = new MovieRecommendationSystem[USER_COUNTS.length];
+        for (int i = 0; i < USER_COUNTS.length; i++) {
+            systems[i] = new MovieRecommendationSystem();
+            systems[i].loadMovies(moviesFile(1000).toString());
+            systems[i].loadUsers(usersFile(USER_COUNTS[i]).toString());
+        }
+
+        double[] nanos = measure(USER_COUNTS, userCount -> {
+            int i = 0;
+            while (USER_COUNTS[i] != userCount) {
+                i++;
+            }
+            systems[i].generateRecommendations(output.toString());
+        });
+        assertScales("generateRecommendations", LINEAR, USER_COUNTS, nanos);
+    }
+}
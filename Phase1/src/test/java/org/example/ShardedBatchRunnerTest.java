@@ -0,0 +1,157 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedBatchRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    private Path usersFile(int count) throws IOException {
+        String[] liked = { "TM123", "I456", "T789", "TM123,T789" };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("User Number," + String.format("%09d", i * 7919));
+            lines.add(liked[i % liked.length]);
+        }
+        return TestFiles.createTempFile(tempDir, "users.txt", lines);
+    }
+
+    @Test
+    public void testShardedRunMatchesSingleProcessRun() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = usersFile(200);
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        system.generateRecommendations(expected.toString());
+
+        Path actual = tempDir.resolve("actual.txt");
+        new ShardedBatchRunner(3).run(movies.toString(), users.toString(), actual.toString());
+
+        assertEquals(Files.readAllLines(expected), Files.readAllLines(actual));
+        // Only the output is left behind; the shard work directory is removed
+        File[] leftovers = tempDir.toFile().listFiles((dir, name) -> name.startsWith("shards"));
+        assertEquals(0, leftovers.length);
+    }
+
+    @Test
+    public void testShardedRunKeepsNonAsciiTitles() throws IOException {
+        Path movies = TestFiles.createTempFile(tempDir, "movies.txt", Arrays.asList(
+                "Am\u00E9lie,A123",
+                "Romance,Comedy",
+                "Titanic,T789",
+                "Romance,Drama"));
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", Arrays.asList(
+                "User Number,000000001",
+                "T789",
+                "User Number,000000002",
+                "A123"));
+
+        MovieRecommendationSystem system = new MovieRecommendationSystem();
+        system.loadMovies(movies.toString());
+        system.loadUsers(users.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        system.generateRecommendations(expected.toString());
+
+        Path actual = tempDir.resolve("actual.txt");
+        new ShardedBatchRunner(2).run(movies.toString(), users.toString(), actual.toString());
+
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+    }
+
+    @Test
+    public void testValidationErrorSkipsWorkers() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", Arrays.asList(
+                "John Doe,123456789",
+                "TM123",
+                "Jane Smith,123456789",
+                "I456"));
+
+        Path actual = tempDir.resolve("actual.txt");
+        new ShardedBatchRunner(2).run(movies.toString(), users.toString(), actual.toString());
+
+        assertEquals(List.of("ERROR: User Id 123456789 isn't unique"), Files.readAllLines(actual));
+    }
+
+    @Test
+    public void testDuplicateIdIsReportedBeforeALaterError() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", Arrays.asList(
+                "John Doe,123456789",
+                "TM123",
+                "Jane Smith,123456789",
+                "I456",
+                "B4d Name,987654321",
+                "T789"));
+
+        Path actual = tempDir.resolve("actual.txt");
+        new ShardedBatchRunner(2).run(movies.toString(), users.toString(), actual.toString());
+
+        // The same error a sequential load reports, which stops at the duplicate
+        assertEquals(List.of("ERROR: User Id 123456789 isn't unique"), Files.readAllLines(actual));
+    }
+
+    @Test
+    public void testFailedWorkerIsReportedByExitCode() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = usersFile(10);
+        // An unknown VM option makes every worker exit with a non-zero code
+        ShardedBatchRunner runner = new ShardedBatchRunner(2, List.of("-XX:+NoSuchWorkerOption"));
+
+        Path actual = tempDir.resolve("actual.txt");
+        IOException e = assertThrows(IOException.class,
+                () -> runner.run(movies.toString(), users.toString(), actual.toString()));
+        assertTrue(e.getMessage().contains("exit code"));
+    }
+
+    // Worker whose shard 1 fails right away while the others hang
+    public static class OneFailingWorker {
+        public static void main(String[] args) throws InterruptedException {
+            if (args[2].endsWith("-1.txt")) {
+                System.exit(3);
+            }
+            Thread.sleep(600_000);
+        }
+    }
+
+    @Test
+    public void testFailedWorkerStopsTheOthers() throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+        Path users = usersFile(10);
+        ShardedBatchRunner runner = new ShardedBatchRunner(3, List.of(), OneFailingWorker.class);
+
+        long start = System.nanoTime();
+        Path actual = tempDir.resolve("actual.txt");
+        IOException e = assertThrows(IOException.class,
+                () -> runner.run(movies.toString(), users.toString(), actual.toString()));
+
+        // Reported as soon as shard 1 fails, though shard 0 never finishes
+        assertTrue(e.getMessage().startsWith("Worker 1 failed with exit code 3"), e.getMessage());
+        assertTrue(System.nanoTime() - start < 60_000_000_000L);
+        assertEquals(0, ProcessHandle.current().children().filter(ProcessHandle::isAlive).count());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith("shards")));
+        }
+    }
+
+    @Test
+    public void testShardCountIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedBatchRunner(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedBatchRunner(ShardedBatchRunner.MAX_SHARDS + 1));
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedUserReaderTest {
+    @TempDir
+    Path tempDir;
+
+    private List<String> userLines(int count) {
+        String[] liked = { "TM123", "I456", "T789", "TM123,T789" };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("User Number," + String.format("%09d", i));
+            lines.add(liked[i % liked.length]);
+        }
+        return lines;
+    }
+
+    // Runs the whole pipeline once with the sequential loader and once with the sharded one
+    private void assertSameOutput(Path usersFile) throws IOException {
+        Path movies = TestFiles.moviesFile(tempDir);
+
+        MovieRecommendationSystem sequential = new MovieRecommendationSystem();
+        sequential.loadMovies(movies.toString());
+        sequential.loadUsers(usersFile.toString());
+        Path expected = tempDir.resolve("expected.txt");
+        sequential.generateRecommendations(expected.toString());
+
+        MovieRecommendationSystem sharded = new MovieRecommendationSystem();
+        sharded.loadMovies(movies.toString());
+        sharded.loadUsersSharded(usersFile.toString(), new ShardedUserReader(new ForkJoinPool(4), 64));
+        Path actual = tempDir.resolve("actual.txt");
+        sharded.generateRecommendations(actual.toString());
+
+        assertEquals(Files.readAllLines(expected), Files.readAllLines(actual));
+    }
+
+    @Test
+    public void testShardedLoadMatchesSequentialLoad() throws IOException {
+        assertSameOutput(TestFiles.createTempFile(tempDir, "users.txt", userLines(500)));
+    }
+
+    @Test
+    public void testShardedLoadKeepsFileOrder() throws IOException {
+        ShardedUserReader reader = new ShardedUserReader(new ForkJoinPool(4), 100);
+        Path users = TestFiles.createTempFile(tempDir, "users.txt", userLines(300));
+        ShardedUserReader.Result result = reader.read(users.toString());
+
+        assertNull(result.getFirstError());
+        assertEquals(300, result.getUsers().size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(String.format("%09d", i), result.getUsers().get(i).getId());
+        }
+    }
+
+    @Test
+    public void testCrossShardDuplicateUserId() throws IOException {
+        List<String> lines = userLines(300);
+        lines.set(2 * 250, "Late Duplicate," + String.format("%09d", 3));
+
+        ShardedUserReader reader = new ShardedUserReader(new ForkJoinPool(4), 100);
+        ShardedUserReader.Result result = reader.read(TestFiles.createTempFile(tempDir, "users.txt", lines).toString());
+
+        assertEquals("ERROR: User Id 000000003 isn't unique", result.getFirstError());
+        assertEquals(250, result.getUsers().size());
+    }
+
+    @Test
+    public void testEarliestErrorWins() throws IOException {
+        List<String> lines = userLines(300);
+        lines.set(2 * 100, "B4d Name," + String.format("%09d", 100));
+        lines.set(2 * 200, "Late Duplicate," + String.format("%09d", 3));
+        assertSameOutput(TestFiles.createTempFile(tempDir, "users.txt", lines));
+    }
+
+    @Test
+    public void testMalformedLineShiftsRecordPairing() throws IOException {
+        List<String> lines = userLines(300);
+        lines.add(120, "not a record line");
+        lines.add("Crlf User,999999999\r");
+        lines.add("I456\r");
+        assertSameOutput(TestFiles.createTempFile(tempDir, "users.txt", lines));
+    }
+}
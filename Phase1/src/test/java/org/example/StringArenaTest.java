@@ -0,0 +1,175 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringArenaTest {
+    @Test
+    public void testAddAndGetAcrossChunks() {
+        StringArena arena = new StringArena();
+        List<String> strings = new ArrayList<>();
+        List<Integer> handles = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String s = i % 7 == 0 ? "" : "Str\u00EFng \uD83D\uDE00 " + i;
+            strings.add(s);
+            handles.add(arena.add(s));
+        }
+        String huge = "x".repeat(StringArena.MAX_CHUNK_BYTES + 10);
+        int hugeHandle = arena.add(huge);
+        int after = arena.add("after");
+
+        for (int i = 0; i < strings.size(); i++) {
+            assertEquals(strings.get(i), arena.get(handles.get(i)));
+        }
+        assertEquals(huge, arena.get(hugeHandle));
+        assertEquals("after", arena.get(after));
+    }
+
+    @Test
+    public void testInternDeduplicates() {
+        StringArena arena = new StringArena();
+        int drama = arena.intern("Drama");
+        long size = arena.sizeInBytes();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(drama, arena.intern(new String("Drama")));
+            arena.intern("Genre" + (i % 10));
+        }
+        assertEquals(size + 10 * 7, arena.sizeInBytes());
+        // add() never deduplicates
+        assertNotEquals(drama, arena.add("Drama"));
+        assertEquals(drama, arena.intern("Drama"));
+    }
+
+    @Test
+    public void testClearForgetsEverything() {
+        StringArena arena = new StringArena();
+        for (int i = 0; i < 10_000; i++) {
+            arena.intern("Movie" + i);
+        }
+        arena.clear();
+
+        assertEquals(0, arena.sizeInBytes());
+        int handle = arena.intern("Movie1");
+        assertEquals("Movie1", arena.get(handle));
+        assertEquals(handle, arena.intern("Movie1"));
+    }
+
+    @Test
+    public void testHashAndBytesMatchTheDecodedString() {
+        StringArena arena = new StringArena();
+        for (String s : new String[] { "", "TM123", "Am\u00E9lie", "\u20AC \uD83D\uDE00", "\uD800x" }) {
+            int handle = arena.add(s);
+            assertEquals(arena.get(handle).hashCode(), arena.hashCode(handle), s);
+            assertArrayEquals(arena.get(handle).getBytes(StandardCharsets.UTF_8), arena.bytes(handle), s);
+        }
+    }
+
+    @Test
+    public void testNullIsKeptAsNullAndWrittenAsNull() throws IOException {
+        StringArena arena = new StringArena();
+        assertEquals(StringArena.NULL, arena.add(null));
+        assertEquals(StringArena.NULL, arena.intern(null));
+        assertNull(arena.get(StringArena.NULL));
+        assertEquals(0, arena.sizeInBytes());
+
+        // As the "name,id" string concatenation printed it
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+        try (RecommendationWriter writer = new RecommendationWriter(Channels.newChannel(out))) {
+            writer.writeUser(catalog, new User(null, "12345678A"));
+        }
+        assertEquals("null,12345678A" + System.lineSeparator() + "No recommendations" + System.lineSeparator(),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testHasRoomForHoldsUpToTheChunkLimit() {
+        StringArena arena = new StringArena(16, 40);
+        Random random = new Random(11);
+        int added = 0;
+        while (true) {
+            int roll = random.nextInt(100);
+            int length = roll < 90 ? random.nextInt(50) : roll < 97 ? 600_000 : 1_500_000;
+            String s = (roll % 2 == 0 ? "a" : "\u20AC").repeat(length);
+            if (!arena.hasRoomFor(1, s.length())) {
+                break;
+            }
+            assertEquals(s.length(), arena.get(arena.add(s)).length());
+            added++;
+        }
+        assertTrue(added > 10);
+
+        // Past the promise, adding eventually runs out of chunks
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                arena.add("x".repeat(StringArena.MAX_CHUNK_BYTES));
+            }
+        });
+    }
+
+    @Test
+    public void testReadUsersContinuesInANewArenaWhenOneIsFull() throws IOException {
+        StringBuilder users = new StringBuilder();
+        for (int u = 0; u < 6000; u++) {
+            users.append("User Number,").append(String.format("%09d", u)).append('\n');
+            for (int k = 0; k < 100; k++) {
+                users.append(k == 0 ? "" : ",").append('X').append(u * 100 + k);
+            }
+            users.append('\n');
+        }
+        // Room for two full chunks, so the first arena fills up after about 2 MB
+        StringArena first = new StringArena(StringArena.MAX_CHUNK_BYTES, 3);
+        List<User> loaded = new ArrayList<>();
+        String error = MovieRecommendationSystem.readUsers(
+                new BufferedReader(new StringReader(users.toString())), new HashSet<>(), first, loaded::add);
+
+        assertNull(error);
+        assertEquals(6000, loaded.size());
+        assertSame(first, loaded.get(0).arena());
+        assertNotSame(first, loaded.get(5999).arena());
+        for (int u : new int[] { 0, 2999, 5999 }) {
+            User user = loaded.get(u);
+            assertEquals(String.format("%09d", u), user.getId());
+            assertEquals(100, user.getLikedMovieIds().size());
+            assertEquals("X" + (u * 100 + 99), user.getLikedMovieIds().get(99));
+        }
+    }
+
+    @Test
+    public void testUserAndMovieViews() {
+        User user = new User("Zo\u00EB", "12345678A");
+        user.addLikedMovieId("TM123");
+        user.addLikedMovieId("I456");
+        user.addLikedMovieId("TM123");
+        List<String> liked = user.getLikedMovieIds();
+        liked.remove(1);
+        liked.add(0, "T789");
+        liked.set(2, "X001");
+
+        assertEquals("Zo\u00EB", user.getName());
+        assertEquals("12345678A", user.getId());
+        assertEquals(Arrays.asList("T789", "TM123", "X001"), user.getLikedMovieIds());
+
+        user.setLikedMovieIds(new ArrayList<>());
+        assertTrue(user.getLikedMovieIds().isEmpty());
+
+        Movie movie = new Movie("The Matrix", "TM123", new String[] { "Action", "Sci-Fi" });
+        assertEquals("The Matrix", movie.getTitle());
+        assertEquals("TM123", movie.getId());
+        assertArrayEquals(new String[] { "Action", "Sci-Fi" }, movie.getGenres());
+        assertTrue(movie.hasGenre(" sci-fi"));
+    }
+}
@@ -0,0 +1,37 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// Input files the tests write into their temporary directories
+final class TestFiles {
+    // Three movies: The Matrix and Inception share Sci-Fi, Titanic shares nothing
+    static final List<String> MOVIES = List.of(
+            "The Matrix,TM123",
+            "Action,Sci-Fi",
+            "Inception,I456",
+            "Sci-Fi,Thriller",
+            "Titanic,T789",
+            "Romance,Drama");
+
+    private TestFiles() {
+    }
+
+    static Path createTempFile(Path dir, String filename, String... lines) throws IOException {
+        return createTempFile(dir, filename, Arrays.asList(lines));
+    }
+
+    static Path createTempFile(Path dir, String filename, List<String> lines) throws IOException {
+        Path filePath = dir.resolve(filename);
+        Files.write(filePath, lines);
+        return filePath;
+    }
+
+    // MOVIES as dir/movies.txt
+    static Path moviesFile(Path dir) throws IOException {
+        return createTempFile(dir, "movies.txt", MOVIES);
+    }
+}
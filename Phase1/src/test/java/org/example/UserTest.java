@@ -100,4 +100,50 @@ public class UserTest {
         assertEquals(2, user.getLikedMovieIds().size()); // Changes to the returned list affect the internal list
         assertTrue(user.getLikedMovieIds().contains("AV456"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetLikedMovieIdsReturnsTheSameList() {
+        // Act & Assert
+        assertSame(user.getLikedMovieIds(), user.getLikedMovieIds());
+    }
+
+    @Test
+    public void testSetLikedMovieIdsCopiesTheList() {
+        // Arrange
+        List<String> newLikedMovies = new ArrayList<>();
+        newLikedMovies.add("TM123");
+
+        // Act
+        user.setLikedMovieIds(newLikedMovies);
+        newLikedMovies.add("AV456"); // Modify the list passed in
+
+        // Assert
+        assertEquals(1, user.getLikedMovieIds().size()); // The user keeps its own copy
+        assertFalse(user.getLikedMovieIds().contains("AV456"));
+    }
+
+    @Test
+    public void testSetLikedMovieIdsToItsOwnList() {
+        // Arrange
+        user.addLikedMovieId("TM123");
+
+        // Act
+        user.setLikedMovieIds(user.getLikedMovieIds());
+
+        // Assert
+        assertEquals(List.of("TM123"), user.getLikedMovieIds());
+    }
+
+    @Test
+    public void testNullNameAndId() {
+        // Act
+        User nullUser = new User(null, null);
+        nullUser.addLikedMovieId(null);
+
+        // Assert
+        assertNull(nullUser.getName());
+        assertNull(nullUser.getId());
+        assertEquals(1, nullUser.getLikedMovieIds().size());
+        assertNull(nullUser.getLikedMovieIds().get(0));
+    }
+}